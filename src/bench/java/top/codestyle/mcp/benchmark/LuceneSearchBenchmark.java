@@ -0,0 +1,84 @@
+package top.codestyle.mcp.benchmark;
+
+import cn.hutool.core.io.FileUtil;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.cn.smart.SmartChineseAnalyzer;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.queryparser.classic.QueryParser;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.openjdk.jmh.annotations.*;
+import top.codestyle.mcp.service.LuceneIndexService;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 本地检索延迟基准测试
+ * reopen: 每次查询重新打开DirectoryReader(旧实现); warm: 常驻搜索器
+ * SampleTime模式输出p50/p99等分位延迟
+ *
+ * @author movclantian
+ * @since 2026-10-18
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LuceneSearchBenchmark {
+
+    private static final String[] KEYWORDS = {"CRUD", "controller", "前端", "增删改查", "service"};
+
+    @Param({"200"})
+    private int groups;
+
+    @Param({"reopen", "warm"})
+    private String mode;
+
+    private Path repoDir;
+    private LuceneIndexService service;
+    private Directory directory;
+    private Analyzer analyzer;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        repoDir = Files.createTempDirectory("codestyle-bench-");
+        for (int i = 0; i < groups; i++) {
+            var artifactDir = new File(repoDir.toFile(), "group" + (i % 20) + File.separator + "artifact" + i);
+            FileUtil.writeUtf8String("""
+                    {"groupId":"group%d","artifactId":"artifact%d","configs":[{"version":"1.0.0","files":[]}]}
+                    """.formatted(i % 20, i), new File(artifactDir, "meta.json"));
+            FileUtil.writeUtf8String(KEYWORDS[i % KEYWORDS.length] + " 模板组 template group " + i,
+                    new File(artifactDir, "1.0.0" + File.separator + "README.md"));
+        }
+        service = new LuceneIndexService(repoDir.toString());
+        service.init();
+        directory = FSDirectory.open(repoDir.resolve("lucene-index"));
+        analyzer = new SmartChineseAnalyzer();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        service.destroy();
+        directory.close();
+        FileUtil.del(repoDir);
+    }
+
+    @Benchmark
+    public Object search() throws Exception {
+        var keyword = KEYWORDS[cursor++ % KEYWORDS.length];
+        if ("warm".equals(mode))
+            return service.fetchLocalMetaConfig(keyword);
+        try (var reader = DirectoryReader.open(directory)) {
+            var parser = new QueryParser("content", analyzer);
+            var topDocs = new IndexSearcher(reader).search(parser.parse(keyword), 1);
+            return topDocs.totalHits.value > 0 ? reader.storedFields().document(topDocs.scoreDocs[0].doc) : null;
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package top.codestyle.mcp.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.modelcontextprotocol.client.McpClient;
+import io.modelcontextprotocol.client.McpSyncClient;
+import io.modelcontextprotocol.client.transport.HttpClientStreamableHttpTransport;
+import io.modelcontextprotocol.client.transport.ServerParameters;
+import io.modelcontextprotocol.client.transport.StdioClientTransport;
+import io.modelcontextprotocol.json.jackson.JacksonMcpJsonMapper;
+import io.modelcontextprotocol.spec.McpClientTransport;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 多客户端压测驱动: 共享HTTP服务实例 vs 每客户端一个stdio进程
+ * stdio模式下为N个客户端各启动一个服务器进程(与IDE/Agent各自拉起JVM的现状一致),Lucene索引目录带写锁,
+ * 每个进程使用一份仓库副本;
+ * http模式下只启动一个http Profile的服务器进程,N个客户端通过可流式HTTP连接同一实例。
+ * 两种模式使用相同的合成仓库和请求混合,输出全部客户端就绪耗时、吞吐量、延迟分位数,
+ * 以及压测期间全部服务器进程的常驻内存(RSS,读取/proc,仅Linux)峰值
+ * <p>
+ * 用法(benchmark Profile):
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Dexec.args="-classpath %classpath top.codestyle.mcp.benchmark.MultiClientLoadDriver
+ *     --clients 8 --requests-per-client 500 --files 10000 --modes stdio,http"
+ * </pre>
+ *
+ * @author movclantian
+ * @since 2026-10-18
+ */
+public class MultiClientLoadDriver {
+
+    public static void main(String[] args) throws Exception {
+        int clients = 8, requestsPerClient = 500, warmup = 50, files = 10000, port = 18090;
+        double searchRatio = 0.3;
+        String modes = "stdio,http";
+        String xmx = "";
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--clients" -> clients = Integer.parseInt(args[i + 1]);
+                case "--requests-per-client" -> requestsPerClient = Integer.parseInt(args[i + 1]);
+                case "--warmup" -> warmup = Integer.parseInt(args[i + 1]);
+                case "--files" -> files = Integer.parseInt(args[i + 1]);
+                case "--search-ratio" -> searchRatio = Double.parseDouble(args[i + 1]);
+                case "--modes" -> modes = args[i + 1];
+                case "--port" -> port = Integer.parseInt(args[i + 1]);
+                case "--xmx" -> xmx = args[i + 1];
+                default -> throw new IllegalArgumentException("未知参数: " + args[i]);
+            }
+        }
+        var options = TemplateRepositoryGenerator.Options.of(files, 42L);
+        var repoDir = Paths.get("target/bench-repos/load-" + files).toAbsolutePath();
+        TemplateRepositoryGenerator.generate(repoDir, options);
+        System.out.printf("仓库 %s (%d 个模板文件), %d 个客户端, 每客户端 %d 次请求%n",
+                repoDir, files, clients, requestsPerClient);
+
+        for (String mode : modes.split(",")) {
+            run(mode.trim(), clients, requestsPerClient, warmup, searchRatio, repoDir, options, port, xmx);
+        }
+    }
+
+    private static void run(String mode, int clients, int requestsPerClient, int warmup, double searchRatio,
+                            Path repoDir, TemplateRepositoryGenerator.Options options, int port, String xmx)
+            throws Exception {
+        boolean http = "http".equals(mode);
+        Process server = null;
+        List<McpSyncClient> mcpClients = new ArrayList<>();
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        try {
+            long startAt = System.nanoTime();
+            if (http) {
+                server = startHttpServer(serverJvmArgs(repoDir, xmx), port);
+            }
+            List<Future<McpSyncClient>> connecting = new ArrayList<>();
+            for (int c = 0; c < clients; c++) {
+                McpClientTransport transport = http
+                        ? HttpClientStreamableHttpTransport.builder("http://127.0.0.1:" + port)
+                        .endpoint("/mcp")
+                        .jsonMapper(new JacksonMcpJsonMapper(new ObjectMapper()))
+                        .build()
+                        : new StdioClientTransport(ServerParameters.builder(javaBin())
+                        .args(withMain(serverJvmArgs(replica(repoDir, c), xmx))).build(),
+                        new JacksonMcpJsonMapper(new ObjectMapper()));
+                connecting.add(pool.submit(() -> {
+                    McpSyncClient client = McpClient.sync(transport)
+                            .requestTimeout(Duration.ofSeconds(180))
+                            .initializationTimeout(Duration.ofSeconds(180))
+                            .build();
+                    client.initialize();
+                    return client;
+                }));
+            }
+            for (Future<McpSyncClient> future : connecting) {
+                mcpClients.add(future.get());
+            }
+            long readyMs = (System.nanoTime() - startAt) / 1_000_000;
+
+            drive(pool, mcpClients, warmup, searchRatio, options, null);
+            var peakRss = new AtomicLong(serverRssKb());
+            var sampler = Executors.newSingleThreadScheduledExecutor();
+            sampler.scheduleAtFixedRate(() -> peakRss.accumulateAndGet(serverRssKb(), Math::max),
+                    0, 200, TimeUnit.MILLISECONDS);
+            var latencies = new ArrayList<long[]>();
+            long begin = System.nanoTime();
+            long errors = drive(pool, mcpClients, requestsPerClient, searchRatio, options, latencies);
+            double seconds = (System.nanoTime() - begin) / 1e9;
+            sampler.shutdownNow();
+
+            int total = clients * requestsPerClient;
+            System.out.printf("%n[%s] 服务器进程 %d 个, 全部客户端就绪 %d ms, 请求 %d, 失败 %d, 耗时 %.2f s, 吞吐量 %.1f req/s%n",
+                    mode, http ? 1 : clients, readyMs, total, errors, seconds, total / seconds);
+            System.out.printf("[%s] 服务器进程RSS峰值合计 %s%n", mode,
+                    peakRss.get() > 0 ? String.format("%.1f MB", peakRss.get() / 1024.0) : "n/a");
+            long[] merged = latencies.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+            StdioLoadDriver.printPercentiles("all tools", merged);
+        } finally {
+            for (McpSyncClient client : mcpClients) {
+                client.closeGracefully();
+            }
+            pool.shutdownNow();
+            if (server != null) {
+                server.destroy();
+                server.waitFor();
+            }
+        }
+    }
+
+    /**
+     * 每个客户端在各自线程中顺序发送请求
+     *
+     * @return 失败次数
+     */
+    private static long drive(ExecutorService pool, List<McpSyncClient> clients, int requests, double searchRatio,
+                              TemplateRepositoryGenerator.Options options, List<long[]> latencies) throws Exception {
+        var errors = new AtomicLong();
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int c = 0; c < clients.size(); c++) {
+            McpSyncClient client = clients.get(c);
+            var random = new Random(c);
+            futures.add(pool.submit(() -> {
+                long[] elapsed = new long[requests];
+                for (int i = 0; i < requests; i++) {
+                    var request = random.nextDouble() < searchRatio
+                            ? StdioLoadDriver.searchRequest(random)
+                            : StdioLoadDriver.contentRequest(options, random);
+                    long begin = System.nanoTime();
+                    try {
+                        if (Boolean.TRUE.equals(client.callTool(request).isError()))
+                            errors.incrementAndGet();
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                    }
+                    elapsed[i] = System.nanoTime() - begin;
+                }
+                return elapsed;
+            }));
+        }
+        for (Future<long[]> future : futures) {
+            long[] elapsed = future.get();
+            if (latencies != null)
+                latencies.add(elapsed);
+        }
+        return errors.get();
+    }
+
+    /**
+     * 第index个stdio进程使用的仓库副本,不含索引目录,已存在时复用
+     */
+    private static Path replica(Path repoDir, int index) throws IOException {
+        Path copy = repoDir.resolveSibling(repoDir.getFileName() + "-replica-" + index);
+        if (Files.isDirectory(copy))
+            return copy;
+        Path tmp = repoDir.resolveSibling(copy.getFileName() + ".tmp");
+        try (var paths = Files.walk(repoDir)) {
+            for (Path source : (Iterable<Path>) paths::iterator) {
+                Path relative = repoDir.relativize(source);
+                if (relative.startsWith("lucene-index"))
+                    continue;
+                Path target = tmp.resolve(relative);
+                if (Files.isDirectory(source))
+                    Files.createDirectories(target);
+                else
+                    Files.copy(source, target);
+            }
+        }
+        Files.move(tmp, copy);
+        return copy;
+    }
+
+    private static List<String> serverJvmArgs(Path repoDir, String xmx) {
+        List<String> args = new ArrayList<>();
+        if (!xmx.isEmpty())
+            args.add("-Xmx" + xmx);
+        args.addAll(List.of("-cp", System.getProperty("java.class.path"),
+                "-Dspring.main.banner-mode=off",
+                "-Dlogging.pattern.console=",
+                "-Dfile.encoding=UTF-8",
+                "-Drepository.dir=" + repoDir,
+                "-Drepository.remote-search-enabled=false",
+                "-Drepository.watch.enabled=false"));
+        return args;
+    }
+
+    private static List<String> withMain(List<String> jvm, String... appArgs) {
+        List<String> command = new ArrayList<>(jvm);
+        command.add("top.codestyle.mcp.McpServerApplication");
+        command.addAll(List.of(appArgs));
+        return command;
+    }
+
+    private static Process startHttpServer(List<String> jvm, int port) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(javaBin());
+        command.addAll(withMain(jvm, "--spring.profiles.active=http", "--server.port=" + port));
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        // 等待端口可连接
+        long deadline = System.currentTimeMillis() + 180_000;
+        while (System.currentTimeMillis() < deadline) {
+            try (var socket = new Socket("127.0.0.1", port)) {
+                return process;
+            } catch (IOException e) {
+                if (!process.isAlive())
+                    throw new IOException("HTTP服务器启动失败,退出码 " + process.exitValue());
+                Thread.sleep(100);
+            }
+        }
+        process.destroy();
+        throw new IOException("等待HTTP服务器启动超时");
+    }
+
+    private static String javaBin() {
+        return Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+    }
+
+    /**
+     * 本进程全部子进程(即服务器进程)的RSS合计(KB),不支持/proc时返回0
+     */
+    private static long serverRssKb() {
+        return ProcessHandle.current().descendants().mapToLong(p -> {
+            try {
+                for (String line : Files.readAllLines(Paths.get("/proc", String.valueOf(p.pid()), "status"))) {
+                    if (line.startsWith("VmRSS:"))
+                        return Long.parseLong(line.replaceAll("\\D", ""));
+                }
+            } catch (IOException | RuntimeException ignored) {
+                // 进程已退出或非Linux
+            }
+            return 0;
+        }).sum();
+    }
+}
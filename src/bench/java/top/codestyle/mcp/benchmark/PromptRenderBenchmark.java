@@ -0,0 +1,66 @@
+package top.codestyle.mcp.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import top.codestyle.mcp.util.PromptTemplate;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+
+/**
+ * 提示词模板渲染基准测试
+ * legacy: 逐个参数String.replaceFirst(旧实现); compiled: 预编译模板单次拼接
+ * contentSize为模板文件内容(第三个参数)的字符数
+ *
+ * @author movclantian
+ * @since 2026-10-18
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PromptRenderBenchmark {
+
+    private static final String TEMPLATE = """
+            #文件名：%{s}
+            #文件变量：
+            ```
+            %{s}
+            ```
+            #文件内容：
+            ```
+            %{s}
+            ```""";
+
+    @Param({"4096", "262144"})
+    private int contentSize;
+
+    private PromptTemplate compiled;
+    private String path;
+    private String variables;
+    private String content;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        compiled = PromptTemplate.compile(TEMPLATE);
+        path = "backend/CRUD/1.0.0/src/main/java/com/air/controller/Controller.ftl";
+        variables = "- packageName: 包名（示例：com.air）[String]\n- className: 类名（示例：User）[String]";
+        var line = "    public ${className}Resp get(@PathVariable Long id) { return service.get(id); }\n";
+        content = line.repeat(contentSize / line.length() + 1).substring(0, contentSize);
+    }
+
+    @Benchmark
+    public String legacy() {
+        String result = TEMPLATE;
+        for (String p : new String[]{path, variables, content}) {
+            result = result.replaceFirst("%\\{s}", Matcher.quoteReplacement(p));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public String compiled() {
+        return compiled.render(path, variables, content);
+    }
+}
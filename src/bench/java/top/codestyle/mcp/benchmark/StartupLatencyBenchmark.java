@@ -0,0 +1,117 @@
+package top.codestyle.mcp.benchmark;
+
+import cn.hutool.core.io.FileUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.modelcontextprotocol.client.McpClient;
+import io.modelcontextprotocol.client.McpSyncClient;
+import io.modelcontextprotocol.client.transport.ServerParameters;
+import io.modelcontextprotocol.client.transport.StdioClientTransport;
+import io.modelcontextprotocol.json.jackson.JacksonMcpJsonMapper;
+import io.modelcontextprotocol.spec.McpSchema;
+import top.codestyle.mcp.service.LuceneIndexService;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * 启动首响应耗时基准
+ * 通过stdio启动MCP服务器进程,记录握手(initialize)完成、首次检索返回以及首次检索命中索引的耗时。
+ * 每种索引构建方式依次测量cold(删除索引目录,首次启动)和warm(已有索引,仅增量校准)两种场景,
+ * 对比后台构建(repository.index.background-warmup=true)与启动时同步构建的差异
+ * <p>
+ * 用法(benchmark Profile):
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Dexec.args="-classpath %classpath top.codestyle.mcp.benchmark.StartupLatencyBenchmark
+ *     --files 20000 --modes background,sync --warmup-wait-ms 3000"
+ * </pre>
+ *
+ * @author movclantian
+ * @since 2026-10-18
+ */
+public class StartupLatencyBenchmark {
+
+    private static final String WARMING_MARKER = "索引正在构建";
+
+    public static void main(String[] args) throws Exception {
+        int files = 20000;
+        String modes = "background,sync";
+        long warmupWaitMs = 3000;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--files" -> files = Integer.parseInt(args[i + 1]);
+                case "--modes" -> modes = args[i + 1];
+                case "--warmup-wait-ms" -> warmupWaitMs = Long.parseLong(args[i + 1]);
+                default -> throw new IllegalArgumentException("未知参数: " + args[i]);
+            }
+        }
+        var options = TemplateRepositoryGenerator.Options.of(files, 42L);
+        var repoDir = Paths.get("target/bench-repos/startup-" + files).toAbsolutePath();
+        TemplateRepositoryGenerator.generate(repoDir, options);
+        System.out.printf("仓库 %s (%d 个模板文件), 无可用索引时检索最多等待 %d ms%n", repoDir, files, warmupWaitMs);
+        System.out.printf("%-11s %-5s %10s %12s %10s %14s%n",
+                "mode", "index", "握手(ms)", "首次响应(ms)", "首次结果", "命中索引(ms)");
+
+        for (String mode : modes.split(",")) {
+            boolean background = "background".equals(mode.trim());
+            // cold删除索引目录模拟首次启动,结束时索引已构建完成,随后的warm直接打开已有索引
+            FileUtil.del(repoDir.resolve(LuceneIndexService.INDEX_DIR).toFile());
+            measure(mode.trim(), "cold", repoDir, background, warmupWaitMs);
+            measure(mode.trim(), "warm", repoDir, background, warmupWaitMs);
+        }
+    }
+
+    /**
+     * 启动一个服务器进程并测量首响应耗时,首次检索返回索引构建中时每100ms重试直到命中索引
+     */
+    private static void measure(String mode, String scenario, Path repoDir, boolean background, long warmupWaitMs) {
+        var params = ServerParameters.builder(Paths.get(System.getProperty("java.home"), "bin", "java").toString())
+                .args("-cp", System.getProperty("java.class.path"),
+                        "-Dspring.ai.mcp.server.stdio=true",
+                        "-Dspring.main.web-application-type=none",
+                        "-Dspring.main.banner-mode=off",
+                        "-Dlogging.pattern.console=",
+                        "-Dfile.encoding=UTF-8",
+                        "-Drepository.dir=" + repoDir,
+                        "-Drepository.remote-search-enabled=false",
+                        "-Drepository.index.background-warmup=" + background,
+                        "-Drepository.index.warmup-wait-ms=" + warmupWaitMs,
+                        "top.codestyle.mcp.McpServerApplication")
+                .build();
+        McpSyncClient client = McpClient.sync(new StdioClientTransport(params,
+                        new JacksonMcpJsonMapper(new ObjectMapper())))
+                .requestTimeout(Duration.ofSeconds(600))
+                .initializationTimeout(Duration.ofSeconds(600))
+                .build();
+        var request = new McpSchema.CallToolRequest("codestyleSearch",
+                Map.of("templateKeyword", TemplateRepositoryGenerator.KEYWORDS[0]));
+        try {
+            long startAt = System.nanoTime();
+            client.initialize();
+            long initializedAt = System.nanoTime();
+
+            String first = text(client.callTool(request));
+            long firstAt = System.nanoTime();
+            boolean warming = first.contains(WARMING_MARKER);
+            String text = first;
+            while (text.contains(WARMING_MARKER)) {
+                Thread.sleep(100);
+                text = text(client.callTool(request));
+            }
+            long hitAt = System.nanoTime();
+
+            System.out.printf("%-11s %-5s %10d %12d %10s %14d%n", mode, scenario,
+                    (initializedAt - startAt) / 1_000_000, (firstAt - startAt) / 1_000_000,
+                    warming ? "warming" : "result", (hitAt - startAt) / 1_000_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            client.closeGracefully();
+        }
+    }
+
+    private static String text(McpSchema.CallToolResult result) {
+        return result.content().isEmpty() ? "" : ((McpSchema.TextContent) result.content().get(0)).text();
+    }
+}
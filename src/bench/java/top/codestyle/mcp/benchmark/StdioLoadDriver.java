@@ -0,0 +1,206 @@
+package top.codestyle.mcp.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.modelcontextprotocol.client.McpClient;
+import io.modelcontextprotocol.client.McpSyncClient;
+import io.modelcontextprotocol.client.transport.ServerParameters;
+import io.modelcontextprotocol.client.transport.StdioClientTransport;
+import io.modelcontextprotocol.json.jackson.JacksonMcpJsonMapper;
+import io.modelcontextprotocol.spec.McpSchema;
+import reactor.core.publisher.Mono;
+
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * stdio压测驱动
+ * 生成(或复用)合成模板仓库,通过stdio启动MCP服务器进程(与CodestyleServiceTest相同的StdioClientTransport方式),
+ * 由多个并发线程按比例混合调用codestyleSearch和getTemplateByPath,输出吞吐量和延迟分位数。
+ * 不依赖远程仓库,服务器以本地Lucene检索模式运行
+ * <p>
+ * 用法(benchmark Profile):
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Dexec.args="-classpath %classpath top.codestyle.mcp.benchmark.StdioLoadDriver
+ *     --files 10000 --threads 8 --requests 5000 --search-ratio 0.3"
+ * </pre>
+ * 指定 --metrics-file 时服务器退出前将工具和阶段耗时指标以JSON行写入该文件,
+ * 指定 --server-type ASYNC 时服务器以响应式工具运行
+ *
+ * @author movclantian
+ * @since 2026-10-18
+ */
+public class StdioLoadDriver {
+
+    private static final String SEARCH_TOOL = "codestyleSearch";
+    private static final String CONTENT_TOOL = "getTemplateByPath";
+
+    public static void main(String[] args) throws Exception {
+        int files = 10000, threads = 8, requests = 2000, warmup = 200, perArtifact = TemplateRepositoryGenerator.FILES_PER_ARTIFACT;
+        double searchRatio = 0.3;
+        String size = TemplateRepositoryGenerator.DEFAULT_SIZE;
+        String repo = null;
+        String metricsFile = "";
+        String serverType = "SYNC";
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--files" -> files = Integer.parseInt(args[i + 1]);
+                case "--files-per-artifact" -> perArtifact = Integer.parseInt(args[i + 1]);
+                case "--size" -> size = args[i + 1];
+                case "--repo" -> repo = args[i + 1];
+                case "--threads" -> threads = Integer.parseInt(args[i + 1]);
+                case "--requests" -> requests = Integer.parseInt(args[i + 1]);
+                case "--warmup" -> warmup = Integer.parseInt(args[i + 1]);
+                case "--search-ratio" -> searchRatio = Double.parseDouble(args[i + 1]);
+                case "--metrics-file" -> metricsFile = Paths.get(args[i + 1]).toAbsolutePath().toString();
+                case "--server-type" -> serverType = args[i + 1];
+                default -> throw new IllegalArgumentException("未知参数: " + args[i]);
+            }
+        }
+        var options = new TemplateRepositoryGenerator.Options(files, perArtifact, size, 42L);
+        var repoDir = Paths.get(repo != null ? repo : "target/bench-repos/load-" + files).toAbsolutePath();
+        TemplateRepositoryGenerator.generate(repoDir, options);
+
+        var params = ServerParameters.builder(Paths.get(System.getProperty("java.home"), "bin", "java").toString())
+                .args("-cp", System.getProperty("java.class.path"),
+                        "-Dspring.ai.mcp.server.stdio=true",
+                        "-Dspring.ai.mcp.server.type=" + serverType,
+                        "-Dspring.main.web-application-type=none",
+                        "-Dspring.main.banner-mode=off",
+                        "-Dlogging.pattern.console=",
+                        "-Dfile.encoding=UTF-8",
+                        "-Drepository.dir=" + repoDir,
+                        "-Drepository.remote-search-enabled=false",
+                        "-Drepository.metrics.dump-file=" + metricsFile,
+                        "top.codestyle.mcp.McpServerApplication")
+                .build();
+        // 客户端stdio传输的输出队列同样不允许并发写入,多线程调用时串行化发送
+        var transport = new StdioClientTransport(params, new JacksonMcpJsonMapper(new ObjectMapper())) {
+            @Override
+            public synchronized Mono<Void> sendMessage(McpSchema.JSONRPCMessage message) {
+                return super.sendMessage(message);
+            }
+        };
+        McpSyncClient client = McpClient.sync(transport)
+                .requestTimeout(Duration.ofSeconds(60))
+                .initializationTimeout(Duration.ofSeconds(120))
+                .build();
+        try {
+            long startAt = System.nanoTime();
+            client.initialize();
+            System.out.printf("服务器就绪(%s): %d ms, 仓库 %s (%d 个模板文件)%n",
+                    serverType, (System.nanoTime() - startAt) / 1_000_000, repoDir, files);
+
+            run(client, options, threads, warmup, searchRatio, false);
+            run(client, options, threads, requests, searchRatio, true);
+        } finally {
+            client.closeGracefully();
+        }
+    }
+
+    /**
+     * 并发执行混合请求
+     *
+     * @param report 是否输出统计(预热轮不输出)
+     */
+    private static void run(McpSyncClient client, TemplateRepositoryGenerator.Options options, int threads,
+                            int requests, double searchRatio, boolean report) throws InterruptedException {
+        var remaining = new AtomicInteger(requests);
+        var errors = new AtomicLong();
+        var searchLatencies = new ArrayList<long[]>();
+        var contentLatencies = new ArrayList<long[]>();
+        var counts = new int[threads][2];
+        var done = new CountDownLatch(threads);
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            int worker = t;
+            var search = new long[requests];
+            var content = new long[requests];
+            searchLatencies.add(search);
+            contentLatencies.add(content);
+            var thread = new Thread(() -> {
+                var random = new Random(worker);
+                try {
+                    while (remaining.getAndDecrement() > 0) {
+                        boolean isSearch = random.nextDouble() < searchRatio;
+                        var request = isSearch ? searchRequest(random) : contentRequest(options, random);
+                        long begin = System.nanoTime();
+                        try {
+                            var result = client.callTool(request);
+                            if (Boolean.TRUE.equals(result.isError()))
+                                errors.incrementAndGet();
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                        long elapsed = System.nanoTime() - begin;
+                        if (isSearch)
+                            search[counts[worker][0]++] = elapsed;
+                        else
+                            content[counts[worker][1]++] = elapsed;
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }, "load-driver-" + t);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        done.await();
+        long elapsed = System.nanoTime() - start;
+        if (!report)
+            return;
+
+        System.out.printf("线程数 %d, 请求数 %d, 失败 %d, 耗时 %.2f s, 吞吐量 %.1f req/s%n",
+                threads, requests, errors.get(), elapsed / 1e9, requests / (elapsed / 1e9));
+        printPercentiles(SEARCH_TOOL, merge(searchLatencies, counts, 0));
+        printPercentiles(CONTENT_TOOL, merge(contentLatencies, counts, 1));
+    }
+
+    static McpSchema.CallToolRequest searchRequest(Random random) {
+        var keywords = TemplateRepositoryGenerator.KEYWORDS;
+        return new McpSchema.CallToolRequest(SEARCH_TOOL,
+                Map.of("templateKeyword", keywords[random.nextInt(keywords.length)]));
+    }
+
+    static McpSchema.CallToolRequest contentRequest(TemplateRepositoryGenerator.Options options,
+                                                            Random random) {
+        int a = random.nextInt(options.artifacts());
+        int i = random.nextInt(options.filesOf(a));
+        return new McpSchema.CallToolRequest(CONTENT_TOOL,
+                Map.of("templatePath", TemplateRepositoryGenerator.exactPath(a, i)));
+    }
+
+    private static long[] merge(List<long[]> perThread, int[][] counts, int kind) {
+        int total = 0;
+        for (int[] count : counts)
+            total += count[kind];
+        var merged = new long[total];
+        int offset = 0;
+        for (int t = 0; t < perThread.size(); t++) {
+            System.arraycopy(perThread.get(t), 0, merged, offset, counts[t][kind]);
+            offset += counts[t][kind];
+        }
+        Arrays.sort(merged);
+        return merged;
+    }
+
+    static void printPercentiles(String tool, long[] sorted) {
+        if (sorted.length == 0)
+            return;
+        System.out.printf("%-18s n=%-6d p50=%.2f ms  p90=%.2f ms  p99=%.2f ms  max=%.2f ms%n", tool, sorted.length,
+                percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99),
+                sorted[sorted.length - 1] / 1e6);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+    }
+}
@@ -0,0 +1,125 @@
+package top.codestyle.mcp.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import top.codestyle.mcp.model.sdk.MetaInfo;
+import top.codestyle.mcp.service.LuceneIndexService;
+import top.codestyle.mcp.service.PromptService;
+import top.codestyle.mcp.util.PromptUtils;
+import top.codestyle.mcp.util.SDKUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 模板仓库综合基准测试
+ * 基于100 / 1万 / 10万个模板文件的合成仓库,覆盖本地检索、索引重建、元信息查找、目录树构建渲染和提示词构建。
+ * 合成仓库生成在target/bench-repos下并在多次运行间复用
+ *
+ * @author movclantian
+ * @since 2026-10-18
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TemplateRepositoryBenchmark {
+
+    private static final String[] KEYWORDS = {"CRUD", "controller", "前端", "增删改查", "service"};
+
+    @Param({"100", "10000", "100000"})
+    private int files;
+
+    private String repoDir;
+    private int artifacts;
+    private LuceneIndexService luceneIndexService;
+    private PromptService promptService;
+    private List<MetaInfo> allMetaInfos;
+    private String sampleContent;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        Path root = TemplateRepositoryGenerator.generate(
+                Paths.get("target", "bench-repos", "files-" + files).toAbsolutePath(), files, 42L);
+        repoDir = root.toString();
+        artifacts = (files + TemplateRepositoryGenerator.FILES_PER_ARTIFACT - 1)
+                / TemplateRepositoryGenerator.FILES_PER_ARTIFACT;
+        luceneIndexService = new LuceneIndexService(repoDir);
+        luceneIndexService.init();
+        promptService = new PromptService();
+
+        allMetaInfos = new ArrayList<>(files);
+        for (int a = 0; a < artifacts; a++) {
+            allMetaInfos.addAll(SDKUtils.searchLocalRepository(
+                    TemplateRepositoryGenerator.groupId(a), TemplateRepositoryGenerator.artifactId(a), repoDir));
+        }
+        sampleContent = Files.readString(Path.of(repoDir, TemplateRepositoryGenerator.exactPath(0, 1)));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        luceneIndexService.destroy();
+    }
+
+    /**
+     * 本地检索(含检索结果缓存,稳定状态下为缓存命中路径)
+     */
+    @Benchmark
+    public Object fetchLocalMetaConfig() {
+        return luceneIndexService.fetchLocalMetaConfig(KEYWORDS[cursor++ % KEYWORDS.length]);
+    }
+
+    /**
+     * 本地检索(不经缓存的Top-K检索)
+     */
+    @Benchmark
+    public Object searchTopK() throws Exception {
+        return luceneIndexService.searchTopK(KEYWORDS[cursor++ % KEYWORDS.length], 5, null, null);
+    }
+
+    /**
+     * 全量重建索引
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 5)
+    public Object rebuildIndex() throws Exception {
+        luceneIndexService.rebuildIndex();
+        return luceneIndexService.getLastBuildStats();
+    }
+
+    @Benchmark
+    public Object searchByPath() {
+        int a = cursor++ % artifacts;
+        return SDKUtils.searchByPath(TemplateRepositoryGenerator.exactPath(a, a % 7), repoDir);
+    }
+
+    @Benchmark
+    public Object searchLocalRepository() {
+        int a = cursor++ % artifacts;
+        return SDKUtils.searchLocalRepository(
+                TemplateRepositoryGenerator.groupId(a), TemplateRepositoryGenerator.artifactId(a), repoDir);
+    }
+
+    /**
+     * 构建并渲染整个仓库的目录树
+     */
+    @Benchmark
+    public String buildTreeStr() {
+        return PromptUtils.buildTreeStr(PromptUtils.buildTree(allMetaInfos), "");
+    }
+
+    @Benchmark
+    public String buildPrompt() {
+        return promptService.buildPrompt(TemplateRepositoryGenerator.exactPath(0, 1),
+                "- className: 类名（示例：User）[String]", sampleContent);
+    }
+}
@@ -0,0 +1,283 @@
+package top.codestyle.mcp.benchmark;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.crypto.SecureUtil;
+import cn.hutool.json.JSONUtil;
+import top.codestyle.mcp.model.meta.LocalMetaConfig;
+import top.codestyle.mcp.model.sdk.MetaVariable;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 合成模板仓库生成器
+ * 按groupId/artifactId/version/...结构生成指定数量的模板文件,meta.json符合LocalMetaConfig格式,
+ * 每个模板组附带中英文混合的README描述,模板文件大小按指定分布生成,供基准测试和压测使用
+ * <p>
+ * 命令行用法:
+ * <pre>
+ * TemplateRepositoryGenerator &lt;目录&gt; [--files 10000] [--files-per-artifact 50] [--size uniform:512-2048] [--seed 42]
+ * </pre>
+ * 文件大小分布: fixed:N、uniform:MIN-MAX、lognormal:MEDIAN:SIGMA(单位字节)
+ *
+ * @author movclantian
+ * @since 2026-10-18
+ */
+public final class TemplateRepositoryGenerator {
+
+    /**
+     * 默认每个模板组的文件数
+     */
+    public static final int FILES_PER_ARTIFACT = 50;
+
+    /**
+     * 生成的模板版本号
+     */
+    public static final String VERSION = "1.0.0";
+
+    /**
+     * 默认文件大小分布
+     */
+    public static final String DEFAULT_SIZE = "uniform:512-1536";
+
+    /**
+     * README中使用的检索关键词,压测时可作为codestyleSearch的提示词
+     */
+    public static final String[] KEYWORDS = {"CRUD", "controller", "service", "mapper", "entity", "前端",
+            "增删改查", "代码生成", "form", "modal"};
+
+    private static final String[] PACKAGES = {"controller", "service", "service/impl", "mapper", "model/entity",
+            "model/req", "model/resp"};
+    private static final String[] ZH_PHRASES = {"基于Spring Boot的后端模板", "包含分页查询与导出", "适用于中后台管理系统",
+            "支持多租户数据隔离", "遵循RESTful接口规范", "集成参数校验和统一异常处理", "前端基于Vue3与Arco Design"};
+    private static final String[] EN_PHRASES = {"generates controller, service and mapper layers",
+            "with pagination and Excel export", "ready for admin dashboards", "supports multi-tenant isolation",
+            "follows RESTful conventions", "includes validation and global error handling",
+            "Vue 3 + TypeScript front-end pages"};
+
+    private TemplateRepositoryGenerator() {
+    }
+
+    /**
+     * 生成参数
+     *
+     * @param totalFiles       模板文件总数
+     * @param filesPerArtifact 每个模板组的文件数
+     * @param size             文件大小分布
+     * @param seed             随机种子
+     */
+    public record Options(int totalFiles, int filesPerArtifact, String size, long seed) {
+
+        /**
+         * 默认参数(每组50个文件、默认大小分布)
+         */
+        public static Options of(int totalFiles, long seed) {
+            return new Options(totalFiles, FILES_PER_ARTIFACT, DEFAULT_SIZE, seed);
+        }
+
+        /**
+         * 模板组数量
+         */
+        public int artifacts() {
+            return (totalFiles + filesPerArtifact - 1) / filesPerArtifact;
+        }
+
+        /**
+         * 第a个模板组的文件数
+         */
+        public int filesOf(int a) {
+            return Math.min(filesPerArtifact, totalFiles - a * filesPerArtifact);
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.err.println("用法: TemplateRepositoryGenerator <目录> [--files N] [--files-per-artifact N] "
+                    + "[--size fixed:N|uniform:MIN-MAX|lognormal:MEDIAN:SIGMA] [--seed N]");
+            System.exit(1);
+        }
+        int files = 10000, perArtifact = FILES_PER_ARTIFACT;
+        String size = DEFAULT_SIZE;
+        long seed = 42L;
+        for (int i = 1; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--files" -> files = Integer.parseInt(args[i + 1]);
+                case "--files-per-artifact" -> perArtifact = Integer.parseInt(args[i + 1]);
+                case "--size" -> size = args[i + 1];
+                case "--seed" -> seed = Long.parseLong(args[i + 1]);
+                default -> throw new IllegalArgumentException("未知参数: " + args[i]);
+            }
+        }
+        long start = System.nanoTime();
+        var options = new Options(files, perArtifact, size, seed);
+        generate(Paths.get(args[0]).toAbsolutePath(), options);
+        System.out.printf("已生成 %d 个模板文件(%d 个模板组)到 %s, 耗时 %d ms%n", files, options.artifacts(),
+                args[0], (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * 使用默认参数生成模板仓库,目标目录已存在同规模仓库时直接复用
+     *
+     * @param root       仓库根目录
+     * @param totalFiles 模板文件总数
+     * @param seed       随机种子
+     * @return 仓库根目录
+     */
+    public static Path generate(Path root, int totalFiles, long seed) {
+        return generate(root, Options.of(totalFiles, seed));
+    }
+
+    /**
+     * 生成模板仓库,目标目录已存在相同参数生成的仓库时直接复用
+     *
+     * @param root    仓库根目录
+     * @param options 生成参数
+     * @return 仓库根目录
+     */
+    public static Path generate(Path root, Options options) {
+        var marker = root.resolve(".generated-" + Integer.toHexString(options.hashCode())).toFile();
+        if (marker.isFile()) {
+            return root;
+        }
+        FileUtil.del(root);
+        var random = new Random(options.seed());
+        var sizes = parseSize(options.size());
+        for (int a = 0; a < options.artifacts(); a++) {
+            writeArtifact(root.toFile(), a, options.filesOf(a), sizes, random);
+        }
+        FileUtil.touch(marker);
+        return root;
+    }
+
+    /**
+     * 第a个模板组的groupId
+     */
+    public static String groupId(int a) {
+        return "group" + (a % 20);
+    }
+
+    /**
+     * 第a个模板组的artifactId
+     */
+    public static String artifactId(int a) {
+        return "artifact" + a;
+    }
+
+    /**
+     * 第a个模板组中第i个文件的精确路径(groupId/artifactId/version/filePath/filename)
+     */
+    public static String exactPath(int a, int i) {
+        return groupId(a) + "/" + artifactId(a) + "/" + VERSION + filePath(a, i) + "/" + filename(i);
+    }
+
+    private static String filePath(int a, int i) {
+        return i % 3 == 0
+                ? "/frontend/src/views/module" + (i % 7) + "/components"
+                : "/backend/src/main/java/com/air/module" + (a % 5) + "/" + PACKAGES[i % PACKAGES.length];
+    }
+
+    private static String filename(int i) {
+        return i % 3 == 0 ? "Component" + i + ".vue.ftl" : "Template" + i + ".java.ftl";
+    }
+
+    private static void writeArtifact(File root, int a, int files, SizeSampler sizes, Random random) {
+        var groupId = groupId(a);
+        var artifactId = artifactId(a);
+        var artifactDir = new File(root, groupId + File.separator + artifactId);
+        var versionDir = new File(artifactDir, VERSION);
+        List<LocalMetaConfig.FileInfo> fileInfos = new ArrayList<>(files);
+        for (int i = 0; i < files; i++) {
+            var content = templateContent(i, sizes.next(random));
+            var file = new File(versionDir, filePath(a, i) + File.separator + filename(i));
+            FileUtil.writeUtf8String(content, file);
+
+            var variable = new MetaVariable();
+            variable.setVariableName("className");
+            variable.setVariableType("String");
+            variable.setVariableComment("类名");
+            variable.setExample("User");
+            var fileInfo = new LocalMetaConfig.FileInfo();
+            fileInfo.setFilePath(filePath(a, i));
+            fileInfo.setFilename(filename(i));
+            fileInfo.setDescription("模板文件 template " + i);
+            fileInfo.setInputVariables(List.of(variable));
+            fileInfo.setSha256(SecureUtil.sha256(file));
+            fileInfos.add(fileInfo);
+        }
+        var config = new LocalMetaConfig.Config();
+        config.setVersion(VERSION);
+        config.setFiles(fileInfos);
+        var metaConfig = new LocalMetaConfig();
+        metaConfig.setGroupId(groupId);
+        metaConfig.setArtifactId(artifactId);
+        metaConfig.setConfigs(List.of(config));
+        FileUtil.writeUtf8String(JSONUtil.toJsonPrettyStr(metaConfig), new File(artifactDir, "meta.json"));
+        FileUtil.writeUtf8String(readme(a, random), new File(versionDir, "README.md"));
+    }
+
+    /**
+     * 生成中英文混合的README,首行标题包含检索关键词
+     */
+    private static String readme(int a, Random random) {
+        var keyword = KEYWORDS[a % KEYWORDS.length];
+        var sb = new StringBuilder();
+        sb.append("# ").append(artifactId(a)).append(' ').append(keyword).append(" 模板组\n\n");
+        int sentences = 2 + random.nextInt(4);
+        for (int s = 0; s < sentences; s++) {
+            sb.append(ZH_PHRASES[random.nextInt(ZH_PHRASES.length)]).append(", ")
+                    .append(EN_PHRASES[random.nextInt(EN_PHRASES.length)]).append(". ");
+        }
+        sb.append("\n\n## 使用 Usage\n\n").append(keyword).append(" template group for load testing, 用于压测的合成模板\n");
+        return sb.toString();
+    }
+
+    private static String templateContent(int i, int size) {
+        var line = "    public ${className}Resp method" + i + "(@PathVariable Long id) { return service.get(id); }\n";
+        var sb = new StringBuilder(size + line.length());
+        sb.append("package ${packageName};\n\n");
+        while (sb.length() < size) {
+            sb.append(line);
+        }
+        sb.setLength(Math.max(size, 1));
+        return sb.toString();
+    }
+
+    /**
+     * 解析文件大小分布
+     *
+     * @param spec fixed:N、uniform:MIN-MAX 或 lognormal:MEDIAN:SIGMA
+     * @return 大小采样器
+     */
+    static SizeSampler parseSize(String spec) {
+        String[] parts = spec.split(":");
+        return switch (parts[0]) {
+            case "fixed" -> {
+                int size = Integer.parseInt(parts[1]);
+                yield random -> size;
+            }
+            case "uniform" -> {
+                String[] range = parts[1].split("-");
+                int min = Integer.parseInt(range[0]), max = Integer.parseInt(range[1]);
+                yield random -> min + random.nextInt(Math.max(1, max - min + 1));
+            }
+            case "lognormal" -> {
+                double median = Double.parseDouble(parts[1]), sigma = Double.parseDouble(parts[2]);
+                yield random -> (int) Math.min(Integer.MAX_VALUE / 2, median * Math.exp(sigma * random.nextGaussian()));
+            }
+            default -> throw new IllegalArgumentException("不支持的文件大小分布: " + spec);
+        };
+    }
+
+    /**
+     * 文件大小采样器
+     */
+    @FunctionalInterface
+    interface SizeSampler {
+
+        int next(Random random);
+    }
+}
@@ -0,0 +1,81 @@
+package top.codestyle.mcp.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import top.codestyle.mcp.model.sdk.MetaInfo;
+import top.codestyle.mcp.model.tree.TreeNode;
+import top.codestyle.mcp.util.PromptUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 目录树渲染基准测试
+ * recursive: 每个节点新建StringBuilder并逐层拼接(旧实现); iterative: 单缓冲区迭代渲染
+ * 合成模板组模拟深层Java包路径和前端目录
+ *
+ * @author movclantian
+ * @since 2026-10-18
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TreeRenderBenchmark {
+
+    private static final String[] PACKAGES = {"controller", "service", "service/impl", "mapper", "model/entity",
+            "model/req", "model/resp", "config", "util", "handler"};
+
+    @Param({"10000", "100000"})
+    private int files;
+
+    private TreeNode tree;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        var random = new Random(42);
+        List<MetaInfo> list = new ArrayList<>(files);
+        for (int i = 0; i < files; i++) {
+            var metaInfo = new MetaInfo();
+            metaInfo.setGroupId("bench");
+            metaInfo.setArtifactId("CRUD");
+            metaInfo.setVersion("1.0.0");
+            if (i % 3 == 0) {
+                metaInfo.setFilePath("/frontend/src/views/module" + random.nextInt(200) + "/components");
+                metaInfo.setFilename("Component" + i + ".vue.ftl");
+            } else {
+                metaInfo.setFilePath("/backend/src/main/java/com/air/module" + random.nextInt(200) + "/"
+                        + PACKAGES[random.nextInt(PACKAGES.length)]);
+                metaInfo.setFilename("Template" + i + ".java.ftl");
+            }
+            list.add(metaInfo);
+        }
+        tree = PromptUtils.buildTree(list);
+    }
+
+    @Benchmark
+    public String recursive() {
+        return recursive(tree, "");
+    }
+
+    @Benchmark
+    public String iterative() {
+        return PromptUtils.buildTreeStr(tree, "");
+    }
+
+    private static String recursive(TreeNode node, String indent) {
+        StringBuilder sb = new StringBuilder();
+        if (!node.getName().isEmpty()) {
+            sb.append(indent).append(node.getName()).append("/\n");
+        }
+        node.getChildren().values().forEach(c -> sb.append(recursive(c, indent + "  ")));
+        node.getFiles().forEach(f -> {
+            String fileName = f.substring(f.lastIndexOf("/") + 1);
+            sb.append(indent).append("└── ").append(fileName).append('\n');
+        });
+        return sb.toString();
+    }
+}
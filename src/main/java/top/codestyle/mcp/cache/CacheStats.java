@@ -0,0 +1,23 @@
+package top.codestyle.mcp.cache;
+
+/**
+ * 缓存统计记录
+ *
+ * @param hits         命中次数
+ * @param misses       未命中次数
+ * @param evictions    容量淘汰次数
+ * @param size         当前条数
+ * @param weightedSize 当前总权重(按条数限制时等于条数)
+ * @author movclantian
+ * @since 2026-10-18
+ */
+public record CacheStats(long hits, long misses, long evictions, long size, long weightedSize) {
+
+    /**
+     * 命中率
+     */
+    public double hitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+}
@@ -0,0 +1,141 @@
+package top.codestyle.mcp.cache;
+
+import com.googlecode.concurrentlinkedhashmap.ConcurrentLinkedHashMap;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * 本地LRU缓存
+ * 基于ConcurrentLinkedHashMap实现容量(条数或权重)上限淘汰,支持可选的过期时间和命中统计
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ * @author movclantian
+ * @since 2026-10-18
+ */
+public class LocalCache<K, V> {
+
+    private final ConcurrentLinkedHashMap<K, Entry<V>> map;
+    private final long ttlMillis;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * 创建按条数限制的缓存
+     *
+     * @param maxEntries 最大条数
+     * @param ttlMillis  过期时间(毫秒),小于等于0表示不过期
+     */
+    public LocalCache(long maxEntries, long ttlMillis) {
+        this(maxEntries, ttlMillis, value -> 1);
+    }
+
+    /**
+     * 创建按权重限制的缓存
+     *
+     * @param maxWeight 最大总权重
+     * @param ttlMillis 过期时间(毫秒),小于等于0表示不过期
+     * @param weigher   单个值的权重计算函数
+     */
+    public LocalCache(long maxWeight, long ttlMillis, ToIntFunction<V> weigher) {
+        this.ttlMillis = ttlMillis;
+        this.map = new ConcurrentLinkedHashMap.Builder<K, Entry<V>>()
+                .maximumWeightedCapacity(Math.max(1, maxWeight))
+                .weigher((Entry<V> entry) -> Math.max(1, weigher.applyAsInt(entry.value())))
+                .listener((key, entry) -> evictions.increment())
+                .build();
+    }
+
+    /**
+     * 获取缓存值
+     *
+     * @param key 键
+     * @return 缓存值,不存在或已过期返回null
+     */
+    public V get(K key) {
+        return get(key, value -> true);
+    }
+
+    /**
+     * 获取缓存值并校验有效性,校验不通过的条目视为未命中并移除
+     *
+     * @param key       键
+     * @param validator 有效性校验
+     * @return 缓存值,不存在、已过期或校验不通过返回null
+     */
+    public V get(K key, Predicate<V> validator) {
+        Entry<V> entry = map.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (entry.isExpired() || !validator.test(entry.value())) {
+            map.remove(key, entry);
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.value();
+    }
+
+    /**
+     * 写入缓存
+     *
+     * @param key   键
+     * @param value 值
+     */
+    public void put(K key, V value) {
+        long expireAt = ttlMillis > 0 ? System.currentTimeMillis() + ttlMillis : Long.MAX_VALUE;
+        map.put(key, new Entry<>(value, expireAt));
+    }
+
+    /**
+     * 移除指定键
+     *
+     * @param key 键
+     */
+    public void invalidate(K key) {
+        map.remove(key);
+    }
+
+    /**
+     * 获取未过期条目的快照,按最久未使用到最近使用排列
+     *
+     * @return 键值快照
+     */
+    public Map<K, V> snapshot() {
+        Map<K, V> result = new LinkedHashMap<>();
+        map.ascendingMap().forEach((key, entry) -> {
+            if (!entry.isExpired())
+                result.put(key, entry.value());
+        });
+        return result;
+    }
+
+    /**
+     * 获取缓存统计
+     *
+     * @return 缓存统计
+     */
+    public CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), map.size(), map.weightedSize());
+    }
+
+    /**
+     * 缓存条目
+     *
+     * @param value    值
+     * @param expireAt 过期时间戳(毫秒)
+     */
+    private record Entry<V>(V value, long expireAt) {
+
+        boolean isExpired() {
+            return System.currentTimeMillis() > expireAt;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package top.codestyle.mcp.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import top.codestyle.mcp.metrics.CodestyleMetrics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MCP消息并发限制过滤器
+ * 只限制POST消息(工具调用等),GET建立的长连接事件流不计入。全局并发达到上限时最多排队等待queueTimeoutMs,
+ * 单个会话(Mcp-Session-Id请求头或SSE的sessionId参数)的并发达到上限时立即拒绝,避免一个客户端占满处理线程。
+ * 传输在返回响应前一直占用请求线程,因此许可在过滤链返回后释放
+ *
+ * @author movclantian
+ * @since 2026-10-18
+ */
+public class McpConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    static final String SESSION_HEADER = "Mcp-Session-Id";
+    static final String SESSION_PARAM = "sessionId";
+
+    private static final String BUSY_RESPONSE =
+            "{\"jsonrpc\":\"2.0\",\"id\":null,\"error\":{\"code\":-32000,\"message\":\"服务繁忙,请稍后重试\"}}";
+
+    private final int maxConcurrentRequests;
+    private final int maxRequestsPerSession;
+    private final long queueTimeoutMs;
+    private final Semaphore requestPermits;
+    private final Map<String, Integer> sessionRequests = new ConcurrentHashMap<>();
+
+    /**
+     * @param maxConcurrentRequests 全局最大并发请求数
+     * @param maxRequestsPerSession 单个会话最大并发请求数
+     * @param queueTimeoutMs        全局并发已满时的最长等待时间(毫秒)
+     */
+    public McpConcurrencyLimitFilter(int maxConcurrentRequests, int maxRequestsPerSession, long queueTimeoutMs) {
+        this.maxConcurrentRequests = maxConcurrentRequests;
+        this.maxRequestsPerSession = maxRequestsPerSession;
+        this.queueTimeoutMs = queueTimeoutMs;
+        this.requestPermits = new Semaphore(maxConcurrentRequests, true);
+        CodestyleMetrics.gauge("codestyle.transport.active", this,
+                f -> f.maxConcurrentRequests - f.requestPermits.availablePermits());
+        CodestyleMetrics.gauge("codestyle.transport.queued", requestPermits, Semaphore::getQueueLength);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equalsIgnoreCase(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String session = sessionId(request);
+        if (session != null && !acquireSession(session)) {
+            reject(response, "session");
+            return;
+        }
+        try {
+            if (!acquire()) {
+                reject(response, "global");
+                return;
+            }
+            try {
+                chain.doFilter(request, response);
+            } finally {
+                requestPermits.release();
+            }
+        } finally {
+            if (session != null) {
+                sessionRequests.computeIfPresent(session, (k, n) -> n <= 1 ? null : n - 1);
+            }
+        }
+    }
+
+    private boolean acquire() {
+        try {
+            return requestPermits.tryAcquire(queueTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private boolean acquireSession(String session) {
+        boolean[] acquired = {false};
+        sessionRequests.compute(session, (k, n) -> {
+            int current = n == null ? 0 : n;
+            if (current >= maxRequestsPerSession) {
+                return n;
+            }
+            acquired[0] = true;
+            return current + 1;
+        });
+        return acquired[0];
+    }
+
+    private static String sessionId(HttpServletRequest request) {
+        String session = request.getHeader(SESSION_HEADER);
+        return session != null ? session : request.getParameter(SESSION_PARAM);
+    }
+
+    private static void reject(HttpServletResponse response, String reason) throws IOException {
+        CodestyleMetrics.increment("codestyle.transport.rejected", "reason", reason);
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setHeader("Retry-After", "1");
+        response.setContentType("application/json");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write(BUSY_RESPONSE);
+    }
+}
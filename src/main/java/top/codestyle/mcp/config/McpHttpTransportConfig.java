@@ -0,0 +1,106 @@
+package top.codestyle.mcp.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.modelcontextprotocol.json.jackson.JacksonMcpJsonMapper;
+import io.modelcontextprotocol.server.transport.HttpServletSseServerTransportProvider;
+import io.modelcontextprotocol.server.transport.HttpServletStreamableServerTransportProvider;
+import io.modelcontextprotocol.spec.McpServerTransportProviderBase;
+import jakarta.servlet.http.HttpServlet;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.boot.web.servlet.ServletRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * MCP HTTP传输配置
+ * 关闭stdio并以servlet方式启动(http Profile)时,由一个常驻服务实例通过可流式HTTP(STREAMABLE)或SSE同时服务多个客户端,
+ * 所有客户端共享同一份Lucene索引、分词词典和各级缓存。提供传输Bean后不再创建stdio传输,
+ * 消息端点前挂并发限制过滤器,超出限制的请求快速返回503
+ *
+ * @author movclantian
+ * @since 2026-10-18
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(prefix = "spring.ai.mcp.server", name = "stdio", havingValue = "false")
+public class McpHttpTransportConfig {
+
+    @Value("${spring.ai.mcp.server.protocol:STREAMABLE}")
+    private String protocol;
+
+    @Value("${spring.ai.mcp.server.streamable-http.mcp-endpoint:/mcp}")
+    private String mcpEndpoint;
+
+    @Value("${spring.ai.mcp.server.sse-endpoint:/sse}")
+    private String sseEndpoint;
+
+    @Value("${spring.ai.mcp.server.sse-message-endpoint:/mcp/message}")
+    private String sseMessageEndpoint;
+
+    @Value("${spring.ai.mcp.server.keep-alive-interval:#{null}}")
+    private Duration keepAliveInterval;
+
+    /**
+     * HTTP传输提供者,按spring.ai.mcp.server.protocol选择可流式HTTP或SSE
+     */
+    @Bean
+    public McpServerTransportProviderBase httpServerTransport(
+            @Qualifier("mcpServerObjectMapper") ObjectMapper objectMapper) {
+        var jsonMapper = new JacksonMcpJsonMapper(objectMapper);
+        if (isSse()) {
+            var builder = HttpServletSseServerTransportProvider.builder()
+                    .jsonMapper(jsonMapper)
+                    .sseEndpoint(sseEndpoint)
+                    .messageEndpoint(sseMessageEndpoint);
+            if (keepAliveInterval != null) {
+                builder.keepAliveInterval(keepAliveInterval);
+            }
+            return builder.build();
+        }
+        var builder = HttpServletStreamableServerTransportProvider.builder()
+                .jsonMapper(jsonMapper)
+                .mcpEndpoint(mcpEndpoint);
+        if (keepAliveInterval != null) {
+            builder.keepAliveInterval(keepAliveInterval);
+        }
+        return builder.build();
+    }
+
+    /**
+     * 将传输提供者注册为servlet
+     */
+    @Bean
+    public ServletRegistrationBean<HttpServlet> mcpTransportServlet(McpServerTransportProviderBase httpServerTransport) {
+        String[] mappings = isSse() ? new String[]{sseEndpoint, sseMessageEndpoint} : new String[]{mcpEndpoint};
+        var registration = new ServletRegistrationBean<>((HttpServlet) httpServerTransport, mappings);
+        registration.setName("mcpTransport");
+        registration.setAsyncSupported(true);
+        return registration;
+    }
+
+    /**
+     * 消息端点的并发限制
+     */
+    @Bean
+    public FilterRegistrationBean<McpConcurrencyLimitFilter> mcpConcurrencyLimitFilter(
+            RepositoryConfig repositoryConfig) {
+        var filter = new McpConcurrencyLimitFilter(
+                repositoryConfig.getTransportMaxConcurrentRequests(),
+                repositoryConfig.getTransportMaxRequestsPerSession(),
+                repositoryConfig.getTransportQueueTimeoutMs());
+        var registration = new FilterRegistrationBean<>(filter);
+        registration.addUrlPatterns(isSse() ? sseMessageEndpoint : mcpEndpoint);
+        registration.setAsyncSupported(true);
+        return registration;
+    }
+
+    private boolean isSse() {
+        return "SSE".equalsIgnoreCase(protocol);
+    }
+}
@@ -0,0 +1,113 @@
+package top.codestyle.mcp.config;
+
+import io.modelcontextprotocol.json.TypeRef;
+import io.modelcontextprotocol.server.transport.StdioServerTransportProvider;
+import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpServerSession;
+import io.modelcontextprotocol.spec.McpServerTransport;
+import io.modelcontextprotocol.spec.McpServerTransportProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+
+/**
+ * MCP传输层配置
+ * stdio传输的输出队列不允许并发写入,多个工具调用同时返回时会出现"Failed to enqueue message"并丢失响应,
+ * 这里将stdio会话的所有出站消息串行到同一个写线程,客户端并发(流水线)调用时每个请求都能收到响应
+ *
+ * @author movclantian
+ * @since 2026-10-18
+ */
+@Configuration
+public class McpTransportConfig {
+
+    /**
+     * 包装stdio传输,串行化出站消息
+     */
+    @Bean
+    public static BeanPostProcessor stdioTransportSerializer() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof StdioServerTransportProvider provider
+                        ? new SerializedTransportProvider(provider)
+                        : bean;
+            }
+        };
+    }
+
+    /**
+     * 出站消息串行化的传输提供者
+     */
+    static final class SerializedTransportProvider implements McpServerTransportProvider {
+
+        private final McpServerTransportProvider delegate;
+        private final Scheduler writer = Schedulers.newSingle("mcp-stdio-writer", true);
+
+        SerializedTransportProvider(McpServerTransportProvider delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void setSessionFactory(McpServerSession.Factory sessionFactory) {
+            delegate.setSessionFactory(transport -> sessionFactory.create(new SerializedTransport(transport, writer)));
+        }
+
+        @Override
+        public Mono<Void> notifyClients(String method, Object params) {
+            return delegate.notifyClients(method, params);
+        }
+
+        @Override
+        public void close() {
+            delegate.close();
+            writer.dispose();
+        }
+
+        @Override
+        public Mono<Void> closeGracefully() {
+            return delegate.closeGracefully().doFinally(signal -> writer.dispose());
+        }
+
+        @Override
+        public List<String> protocolVersions() {
+            return delegate.protocolVersions();
+        }
+    }
+
+    /**
+     * 在写线程上订阅发送,保证同一时刻只有一个线程写入输出队列
+     */
+    private record SerializedTransport(McpServerTransport delegate, Scheduler writer) implements McpServerTransport {
+
+        @Override
+        public Mono<Void> sendMessage(McpSchema.JSONRPCMessage message) {
+            return delegate.sendMessage(message).subscribeOn(writer);
+        }
+
+        @Override
+        public <T> T unmarshalFrom(Object data, TypeRef<T> typeRef) {
+            return delegate.unmarshalFrom(data, typeRef);
+        }
+
+        @Override
+        public void close() {
+            delegate.close();
+        }
+
+        @Override
+        public Mono<Void> closeGracefully() {
+            return delegate.closeGracefully();
+        }
+
+        @Override
+        public List<String> protocolVersions() {
+            return delegate.protocolVersions();
+        }
+    }
+}
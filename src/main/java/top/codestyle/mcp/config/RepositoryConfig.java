@@ -5,6 +5,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import top.codestyle.mcp.util.RemoteHttpClient;
 import top.codestyle.mcp.util.SDKUtils;
 
 import java.io.File;
@@ -49,6 +50,230 @@ public class RepositoryConfig {
     @Value("${repository.remote-search-enabled:false}")
     private boolean remoteSearchEnabled;
 
+    /**
+     * 索引定时提交间隔(毫秒),默认1000
+     */
+    @Value("${repository.index.commit-interval-ms:1000}")
+    private long indexCommitIntervalMs = 1000;
+
+    /**
+     * 索引批量提交阈值,待提交更新达到该数量时立即提交,默认32
+     */
+    @Value("${repository.index.commit-batch-size:32}")
+    private int indexCommitBatchSize = 32;
+
+    /**
+     * 启动时是否增量校准索引,默认true
+     * 为false或索引不存在、结构版本变化时全量重建
+     */
+    @Value("${repository.index.incremental:true}")
+    private boolean indexIncremental = true;
+
+    /**
+     * 索引构建并行度,默认0表示使用CPU核数
+     */
+    @Value("${repository.index.parallelism:0}")
+    private int indexParallelism = 0;
+
+    /**
+     * 是否在后台校准或重建索引,默认true
+     * 启动时直接打开磁盘上已有的索引提供检索,不等待仓库扫描完成
+     */
+    @Value("${repository.index.background-warmup:true}")
+    private boolean indexBackgroundWarmup = true;
+
+    /**
+     * 尚无可用索引时检索等待索引构建的最长时间(毫秒),超时返回索引构建中的提示,默认3000
+     */
+    @Value("${repository.index.warmup-wait-ms:3000}")
+    private long indexWarmupWaitMs = 3000;
+
+    /**
+     * 检索结果缓存最大条数,默认1024
+     */
+    @Value("${repository.search-cache.max-entries:1024}")
+    private long searchCacheMaxEntries = 1024;
+
+    /**
+     * 检索结果缓存过期时间(秒),默认600,0表示仅随索引变更失效
+     */
+    @Value("${repository.search-cache.ttl-seconds:600}")
+    private long searchCacheTtlSeconds = 600;
+
+    /**
+     * 模板内容缓存总字节数上限,默认32MB
+     */
+    @Value("${repository.content-cache.max-bytes:33554432}")
+    private long contentCacheMaxBytes = 32L * 1024 * 1024;
+
+    /**
+     * 模板文件达到该大小(字节)时使用内存映射读取,默认1MB
+     */
+    @Value("${repository.content-cache.mmap-threshold-bytes:1048576}")
+    private long contentCacheMmapThresholdBytes = 1024 * 1024;
+
+    /**
+     * 搜索结果目录树最多输出的节点数,默认0(不限制)
+     */
+    @Value("${repository.tree.max-nodes:0}")
+    private int treeMaxNodes = 0;
+
+    /**
+     * 搜索结果目录树最多展开的目录深度,默认0(不限制)
+     */
+    @Value("${repository.tree.max-depth:0}")
+    private int treeMaxDepth = 0;
+
+    /**
+     * 是否通过JMX暴露指标,默认true
+     */
+    @Value("${repository.metrics.jmx-enabled:true}")
+    private boolean metricsJmxEnabled = true;
+
+    /**
+     * 指标JSON Lines输出文件,为空表示不输出
+     */
+    @Value("${repository.metrics.dump-file:}")
+    private String metricsDumpFile = "";
+
+    /**
+     * 指标文件输出间隔(秒),默认60
+     */
+    @Value("${repository.metrics.dump-interval-seconds:60}")
+    private long metricsDumpIntervalSeconds = 60;
+
+    /**
+     * 是否缓存远程检索结果,默认true
+     */
+    @Value("${repository.remote-cache.enabled:true}")
+    private boolean remoteCacheEnabled = true;
+
+    /**
+     * 远程检索结果有效期(秒),过期后携带ETag重新验证,默认300
+     */
+    @Value("${repository.remote-cache.ttl-seconds:300}")
+    private long remoteCacheTtlSeconds = 300;
+
+    /**
+     * 远程检索缓存最大条数,默认256
+     */
+    @Value("${repository.remote-cache.max-entries:256}")
+    private long remoteCacheMaxEntries = 256;
+
+    /**
+     * 是否将远程检索缓存持久化到仓库目录,默认true
+     */
+    @Value("${repository.remote-cache.persist-enabled:true}")
+    private boolean remoteCachePersistEnabled = true;
+
+    /**
+     * 远程检索缓存变化后延迟写入持久化文件的时间(毫秒),期间的多次变化合并为一次写入,0表示立即写入,默认1000
+     */
+    @Value("${repository.remote-cache.persist-delay-ms:1000}")
+    private long remoteCachePersistDelayMs = 1000;
+
+    /**
+     * 远程仓库连接超时(毫秒),默认5000
+     */
+    @Value("${repository.http.connect-timeout-ms:5000}")
+    private long httpConnectTimeoutMs = 5000;
+
+    /**
+     * 远程仓库读取超时(毫秒),默认30000
+     */
+    @Value("${repository.http.read-timeout-ms:30000}")
+    private long httpReadTimeoutMs = 30000;
+
+    /**
+     * 连接池最大空闲连接数,默认8
+     */
+    @Value("${repository.http.max-idle-connections:8}")
+    private int httpMaxIdleConnections = 8;
+
+    /**
+     * 空闲连接保活时间(毫秒),默认300000
+     */
+    @Value("${repository.http.keep-alive-ms:300000}")
+    private long httpKeepAliveMs = 300000;
+
+    /**
+     * 同一远程主机最大并发请求数,默认8
+     */
+    @Value("${repository.http.max-requests-per-host:8}")
+    private int httpMaxRequestsPerHost = 8;
+
+    /**
+     * 是否只下载变化的模板文件,默认true
+     */
+    @Value("${repository.download.differential-enabled:true}")
+    private boolean downloadDifferentialEnabled = true;
+
+    /**
+     * 本地已安装的模板组是否先用本地版本应答并在后台更新,默认true
+     */
+    @Value("${repository.download.background-refresh-enabled:true}")
+    private boolean downloadBackgroundRefreshEnabled = true;
+
+    /**
+     * ASYNC模式下工具执行线程数,默认8
+     */
+    @Value("${repository.async.tool-threads:8}")
+    private int asyncToolThreads = 8;
+
+    /**
+     * ASYNC模式下等待执行的工具调用上限,超出时直接返回繁忙提示,默认256
+     */
+    @Value("${repository.async.tool-queue-capacity:256}")
+    private int asyncToolQueueCapacity = 256;
+
+    /**
+     * ASYNC模式下本地缺失模板组的下载线程数,默认4
+     */
+    @Value("${repository.async.download-threads:4}")
+    private int asyncDownloadThreads = 4;
+
+    /**
+     * HTTP传输下全局最大并发消息数,默认64
+     */
+    @Value("${repository.transport.max-concurrent-requests:64}")
+    private int transportMaxConcurrentRequests = 64;
+
+    /**
+     * HTTP传输下单个会话最大并发消息数,默认8
+     */
+    @Value("${repository.transport.max-requests-per-session:8}")
+    private int transportMaxRequestsPerSession = 8;
+
+    /**
+     * HTTP传输下全局并发已满时的最长等待时间(毫秒),默认1000
+     */
+    @Value("${repository.transport.queue-timeout-ms:1000}")
+    private long transportQueueTimeoutMs = 1000;
+
+    /**
+     * 是否监听仓库目录变化,默认true
+     */
+    @Value("${repository.watch.enabled:true}")
+    private boolean watchEnabled = true;
+
+    /**
+     * 监听模式: auto(优先原生监听,不支持时轮询)、native(仅原生监听)、poll(仅轮询),默认auto
+     */
+    @Value("${repository.watch.mode:auto}")
+    private String watchMode = "auto";
+
+    /**
+     * 变更去抖时间(毫秒),同一模板组在该时间内的多次变更合并处理,默认500
+     */
+    @Value("${repository.watch.debounce-ms:500}")
+    private long watchDebounceMs = 500;
+
+    /**
+     * 轮询模式的扫描间隔(毫秒),默认5000
+     */
+    @Value("${repository.watch.poll-interval-ms:5000}")
+    private long watchPollIntervalMs = 5000;
+
     /**
      * 获取本地基础路径
      */
@@ -66,6 +291,7 @@ public class RepositoryConfig {
     @PostConstruct
     public void init() {
         RepositoryConfigHolder.inject(this);
+        RemoteHttpClient.configure(getHttpSettings());
     }
 
     /**
@@ -86,6 +312,238 @@ public class RepositoryConfig {
         return remoteSearchEnabled;
     }
 
+    /**
+     * 获取索引定时提交间隔(毫秒)
+     */
+    public long getIndexCommitIntervalMs() {
+        return indexCommitIntervalMs;
+    }
+
+    /**
+     * 获取索引批量提交阈值
+     */
+    public int getIndexCommitBatchSize() {
+        return indexCommitBatchSize;
+    }
+
+    /**
+     * 启动时是否增量校准索引
+     */
+    public boolean isIndexIncremental() {
+        return indexIncremental;
+    }
+
+    /**
+     * 获取索引构建并行度
+     */
+    public int getIndexParallelism() {
+        return indexParallelism;
+    }
+
+    /**
+     * 是否在后台校准或重建索引
+     */
+    public boolean isIndexBackgroundWarmup() {
+        return indexBackgroundWarmup;
+    }
+
+    /**
+     * 获取尚无可用索引时检索等待索引构建的最长时间(毫秒)
+     */
+    public long getIndexWarmupWaitMs() {
+        return indexWarmupWaitMs;
+    }
+
+    /**
+     * 获取检索结果缓存最大条数
+     */
+    public long getSearchCacheMaxEntries() {
+        return searchCacheMaxEntries;
+    }
+
+    /**
+     * 获取检索结果缓存过期时间(秒)
+     */
+    public long getSearchCacheTtlSeconds() {
+        return searchCacheTtlSeconds;
+    }
+
+    /**
+     * 获取模板内容缓存总字节数上限
+     */
+    public long getContentCacheMaxBytes() {
+        return contentCacheMaxBytes;
+    }
+
+    /**
+     * 获取内存映射读取阈值(字节)
+     */
+    public long getContentCacheMmapThresholdBytes() {
+        return contentCacheMmapThresholdBytes;
+    }
+
+    /**
+     * 获取目录树最多输出的节点数
+     */
+    public int getTreeMaxNodes() {
+        return treeMaxNodes;
+    }
+
+    /**
+     * 获取目录树最多展开的目录深度
+     */
+    public int getTreeMaxDepth() {
+        return treeMaxDepth;
+    }
+
+    /**
+     * 是否通过JMX暴露指标
+     */
+    public boolean isMetricsJmxEnabled() {
+        return metricsJmxEnabled;
+    }
+
+    /**
+     * 获取指标JSON Lines输出文件
+     */
+    public String getMetricsDumpFile() {
+        return metricsDumpFile;
+    }
+
+    /**
+     * 获取指标文件输出间隔(秒)
+     */
+    public long getMetricsDumpIntervalSeconds() {
+        return metricsDumpIntervalSeconds;
+    }
+
+    /**
+     * 是否缓存远程检索结果
+     */
+    public boolean isRemoteCacheEnabled() {
+        return remoteCacheEnabled;
+    }
+
+    /**
+     * 获取远程检索结果有效期(秒)
+     */
+    public long getRemoteCacheTtlSeconds() {
+        return remoteCacheTtlSeconds;
+    }
+
+    /**
+     * 获取远程检索缓存最大条数
+     */
+    public long getRemoteCacheMaxEntries() {
+        return remoteCacheMaxEntries;
+    }
+
+    /**
+     * 是否将远程检索缓存持久化到仓库目录
+     */
+    public boolean isRemoteCachePersistEnabled() {
+        return remoteCachePersistEnabled;
+    }
+
+    /**
+     * 获取远程检索缓存延迟持久化时间(毫秒)
+     */
+    public long getRemoteCachePersistDelayMs() {
+        return remoteCachePersistDelayMs;
+    }
+
+    /**
+     * 获取远程仓库HTTP客户端配置
+     */
+    public RemoteHttpClient.Settings getHttpSettings() {
+        return new RemoteHttpClient.Settings(httpConnectTimeoutMs, httpReadTimeoutMs,
+                httpMaxIdleConnections, httpKeepAliveMs, httpMaxRequestsPerHost);
+    }
+
+    /**
+     * 是否只下载变化的模板文件
+     */
+    public boolean isDownloadDifferentialEnabled() {
+        return downloadDifferentialEnabled;
+    }
+
+    /**
+     * 本地已安装的模板组是否先用本地版本应答并在后台更新
+     */
+    public boolean isDownloadBackgroundRefreshEnabled() {
+        return downloadBackgroundRefreshEnabled;
+    }
+
+    /**
+     * ASYNC模式下工具执行线程数
+     */
+    public int getAsyncToolThreads() {
+        return Math.max(1, asyncToolThreads);
+    }
+
+    /**
+     * ASYNC模式下等待执行的工具调用上限
+     */
+    public int getAsyncToolQueueCapacity() {
+        return Math.max(1, asyncToolQueueCapacity);
+    }
+
+    /**
+     * ASYNC模式下本地缺失模板组的下载线程数
+     */
+    public int getAsyncDownloadThreads() {
+        return Math.max(1, asyncDownloadThreads);
+    }
+
+    /**
+     * HTTP传输下全局最大并发消息数
+     */
+    public int getTransportMaxConcurrentRequests() {
+        return Math.max(1, transportMaxConcurrentRequests);
+    }
+
+    /**
+     * HTTP传输下单个会话最大并发消息数
+     */
+    public int getTransportMaxRequestsPerSession() {
+        return Math.max(1, transportMaxRequestsPerSession);
+    }
+
+    /**
+     * HTTP传输下全局并发已满时的最长等待时间(毫秒)
+     */
+    public long getTransportQueueTimeoutMs() {
+        return Math.max(0, transportQueueTimeoutMs);
+    }
+
+    /**
+     * 是否监听仓库目录变化
+     */
+    public boolean isWatchEnabled() {
+        return watchEnabled;
+    }
+
+    /**
+     * 获取监听模式
+     */
+    public String getWatchMode() {
+        return watchMode;
+    }
+
+    /**
+     * 获取变更去抖时间(毫秒)
+     */
+    public long getWatchDebounceMs() {
+        return watchDebounceMs;
+    }
+
+    /**
+     * 获取轮询模式的扫描间隔(毫秒)
+     */
+    public long getWatchPollIntervalMs() {
+        return watchPollIntervalMs;
+    }
+
     /**
      * 创建仓库目录Bean
      * 确保仓库目录存在,创建失败时自动降级到系统临时目录
@@ -21,6 +21,18 @@ public class RepositoryConfigStub extends RepositoryConfig {
     @Override
     public String getRepositoryDir() { return localRepoDir; }
 
+    /* 插件为一次性进程,后台更新可能随进程退出中断,始终同步下载 */
+    @Override
+    public boolean isDownloadBackgroundRefreshEnabled() { return false; }
+
+    /* 插件为一次性进程,没有关闭回调写入延迟的持久化,缓存变化时立即写入 */
+    @Override
+    public long getRemoteCachePersistDelayMs() { return 0; }
+
+    /* 基准测试等经插件构造创建索引服务后调用init()并立即检索,同步构建索引;插件自身不调用init() */
+    @Override
+    public boolean isIndexBackgroundWarmup() { return false; }
+
     @Override
     public String getRemotePath()    { return remoteBaseUrl; }
 }
\ No newline at end of file
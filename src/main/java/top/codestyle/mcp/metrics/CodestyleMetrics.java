@@ -0,0 +1,170 @@
+package top.codestyle.mcp.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+
+import top.codestyle.mcp.cache.CacheStats;
+
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 指标门面
+ * 以静态方法提供工具调用、内部阶段的计时和计数,Spring启动时向复合注册表挂载JMX等具体注册表;
+ * 未挂载任何注册表时(如Maven插件模式)记录操作为空操作
+ *
+ * @author movclantian
+ * @since 2026-10-18
+ */
+public final class CodestyleMetrics {
+
+    /**
+     * MCP工具调用耗时,标签: tool、outcome
+     */
+    public static final String TOOL_TIMER = "codestyle.tool";
+
+    /**
+     * 内部阶段耗时,标签: stage
+     */
+    public static final String STAGE_TIMER = "codestyle.stage";
+
+    /* ---------- 阶段名 ---------- */
+    public static final String STAGE_REMOTE_FETCH = "remote_fetch";
+    public static final String STAGE_DOWNLOAD = "download";
+    public static final String STAGE_ZIP_EXTRACT = "zip_extract";
+    public static final String STAGE_INDEX_UPDATE = "index_update";
+    public static final String STAGE_INDEX_COMMIT = "index_commit";
+    public static final String STAGE_LOCAL_SEARCH = "local_search";
+    public static final String STAGE_TREE_BUILD = "tree_build";
+    public static final String STAGE_PROMPT_RENDER = "prompt_render";
+    public static final String STAGE_TEMPLATE_READ = "template_read";
+
+    /* ---------- 工具调用结果 ---------- */
+    public static final String OUTCOME_SUCCESS = "success";
+    public static final String OUTCOME_NOT_FOUND = "not_found";
+    public static final String OUTCOME_ERROR = "error";
+    public static final String OUTCOME_BUSY = "busy";
+    public static final String OUTCOME_WARMING = "warming";
+
+    private static final CompositeMeterRegistry REGISTRY = new CompositeMeterRegistry();
+
+    private CodestyleMetrics() {
+    }
+
+    /**
+     * 获取复合注册表,用于挂载具体注册表
+     *
+     * @return 复合注册表
+     */
+    public static CompositeMeterRegistry registry() {
+        return REGISTRY;
+    }
+
+    /**
+     * 开始计时
+     *
+     * @return 计时样本
+     */
+    public static Timer.Sample start() {
+        return Timer.start(REGISTRY);
+    }
+
+    /**
+     * 结束工具调用计时
+     *
+     * @param sample  计时样本
+     * @param tool    工具名
+     * @param outcome 调用结果
+     */
+    public static void stopTool(Timer.Sample sample, String tool, String outcome) {
+        sample.stop(Timer.builder(TOOL_TIMER)
+                .description("MCP工具调用耗时")
+                .tags("tool", tool, "outcome", outcome)
+                .publishPercentiles(0.5, 0.9, 0.99)
+                .register(REGISTRY));
+    }
+
+    /**
+     * 结束内部阶段计时
+     *
+     * @param sample 计时样本
+     * @param stage  阶段名
+     */
+    public static void stopStage(Timer.Sample sample, String stage) {
+        sample.stop(Timer.builder(STAGE_TIMER)
+                .description("内部阶段耗时")
+                .tag("stage", stage)
+                .register(REGISTRY));
+    }
+
+    /**
+     * 计数加一
+     *
+     * @param name 指标名
+     * @param tags 标签键值对
+     */
+    public static void increment(String name, String... tags) {
+        Counter.builder(name).tags(tags).register(REGISTRY).increment();
+    }
+
+    /**
+     * 注册仪表,对象以弱引用持有
+     *
+     * @param name  指标名
+     * @param obj   被观测对象
+     * @param value 取值函数
+     * @param tags  标签键值对
+     */
+    public static <T> void gauge(String name, T obj, ToDoubleFunction<T> value, String... tags) {
+        Gauge.builder(name, obj, value).tags(tags).register(REGISTRY);
+    }
+
+    /**
+     * 注册单调递增的函数计数器,对象以弱引用持有
+     *
+     * @param name  指标名
+     * @param obj   被观测对象
+     * @param count 取值函数
+     * @param tags  标签键值对
+     */
+    public static <T> void functionCounter(String name, T obj, ToDoubleFunction<T> count, String... tags) {
+        FunctionCounter.builder(name, obj, count).tags(tags).register(REGISTRY);
+    }
+
+    /**
+     * 注册缓存指标: 命中/未命中/淘汰次数、条目数(或权重)和命中率
+     *
+     * @param cache 缓存名(标签cache的值)
+     * @param obj   持有缓存的对象
+     * @param stats 缓存统计获取函数
+     */
+    public static <T> void cache(String cache, T obj, Function<T, CacheStats> stats) {
+        functionCounter("codestyle.cache.requests", obj, o -> stats.apply(o).hits(), "cache", cache, "result", "hit");
+        functionCounter("codestyle.cache.requests", obj, o -> stats.apply(o).misses(), "cache", cache, "result", "miss");
+        functionCounter("codestyle.cache.evictions", obj, o -> stats.apply(o).evictions(), "cache", cache);
+        gauge("codestyle.cache.size", obj, o -> stats.apply(o).weightedSize(), "cache", cache);
+        gauge("codestyle.cache.hit.ratio", obj, o -> stats.apply(o).hitRate(), "cache", cache);
+    }
+
+    /**
+     * 向复合注册表挂载具体注册表
+     *
+     * @param registry 具体注册表
+     */
+    public static void addRegistry(MeterRegistry registry) {
+        REGISTRY.add(registry);
+    }
+
+    /**
+     * 从复合注册表移除具体注册表
+     *
+     * @param registry 具体注册表
+     */
+    public static void removeRegistry(MeterRegistry registry) {
+        REGISTRY.remove(registry);
+    }
+}
@@ -0,0 +1,53 @@
+package top.codestyle.mcp.metrics;
+
+import cn.hutool.core.util.StrUtil;
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.jmx.JmxConfig;
+import io.micrometer.jmx.JmxMeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import top.codestyle.mcp.config.RepositoryConfig;
+
+import java.nio.file.Paths;
+
+/**
+ * 指标导出
+ * 按配置向指标门面挂载JMX注册表,并可选启动JSON Lines文件输出
+ *
+ * @author movclantian
+ * @since 2026-10-18
+ */
+@Component
+@RequiredArgsConstructor
+public class MetricsExporter {
+
+    private final RepositoryConfig repositoryConfig;
+
+    private JmxMeterRegistry jmxRegistry;
+    private MetricsFileReporter fileReporter;
+
+    @PostConstruct
+    public void start() {
+        if (repositoryConfig.isMetricsJmxEnabled()) {
+            jmxRegistry = new JmxMeterRegistry(JmxConfig.DEFAULT, Clock.SYSTEM);
+            CodestyleMetrics.addRegistry(jmxRegistry);
+        }
+        if (StrUtil.isNotBlank(repositoryConfig.getMetricsDumpFile())) {
+            fileReporter = new MetricsFileReporter(Paths.get(repositoryConfig.getMetricsDumpFile()),
+                    repositoryConfig.getMetricsDumpIntervalSeconds());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (fileReporter != null) {
+            fileReporter.close();
+        }
+        if (jmxRegistry != null) {
+            CodestyleMetrics.removeRegistry(jmxRegistry);
+            jmxRegistry.close();
+        }
+    }
+}
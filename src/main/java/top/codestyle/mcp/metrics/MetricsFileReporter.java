@@ -0,0 +1,98 @@
+package top.codestyle.mcp.metrics;
+
+import cn.hutool.json.JSONObject;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Measurement;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 指标文件输出器
+ * 定期将全部指标以JSON Lines格式(每个指标一行)追加写入文件,便于stdio模式下无HTTP端口时采集
+ *
+ * @author movclantian
+ * @since 2026-10-18
+ */
+public class MetricsFileReporter implements AutoCloseable {
+
+    private final Path file;
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * 创建并启动输出器
+     *
+     * @param file            输出文件
+     * @param intervalSeconds 输出间隔(秒)
+     */
+    public MetricsFileReporter(Path file, long intervalSeconds) {
+        this.file = file;
+        CodestyleMetrics.addRegistry(registry);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            var thread = new Thread(r, "metrics-file-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(1, intervalSeconds);
+        scheduler.scheduleAtFixedRate(this::reportQuietly, interval, interval, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 立即输出一次全部指标
+     *
+     * @throws IOException 写入失败
+     */
+    public void report() throws IOException {
+        String time = Instant.now().toString();
+        StringBuilder sb = new StringBuilder();
+        for (Meter meter : registry.getMeters()) {
+            var line = new JSONObject(true);
+            line.set("time", time);
+            line.set("name", meter.getId().getName());
+            line.set("type", meter.getId().getType().name().toLowerCase());
+            var tags = new JSONObject(true);
+            for (Tag tag : meter.getId().getTagsAsIterable()) {
+                tags.set(tag.getKey(), tag.getValue());
+            }
+            line.set("tags", tags);
+            for (Measurement measurement : meter.measure()) {
+                double value = measurement.getValue();
+                line.set(measurement.getStatistic().getTagValueRepresentation(), Double.isFinite(value) ? value : null);
+            }
+            sb.append(line).append('\n');
+        }
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        Files.writeString(file, sb, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private void reportQuietly() {
+        try {
+            report();
+        } catch (Exception ignored) {
+            // 输出失败不影响服务,等待下一次
+        }
+    }
+
+    /**
+     * 停止输出,关闭前再输出一次
+     */
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        reportQuietly();
+        CodestyleMetrics.removeRegistry(registry);
+        registry.close();
+    }
+}
@@ -0,0 +1,78 @@
+package top.codestyle.mcp.plugin;
+
+import cn.hutool.core.util.StrUtil;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import top.codestyle.mcp.config.RepositoryConfigHolder;
+import top.codestyle.mcp.util.TemplateIntegrityChecker;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * 校验本地模板仓库完整性
+ * 并行计算所有模板文件的SHA256并与meta.json比对,输出缺失、损坏文件和校验吞吐量
+ * @goal verify
+ */
+@Mojo(name = "verify", threadSafe = true)
+public class VerifyMojo extends AbstractMojo {
+
+    private static final int MAX_LISTED_FILES = 50;
+
+    @Parameter(property = "dir")
+    private String repositoryDir;
+
+    @Parameter(property = "threads")
+    private Integer threads;
+
+    @Parameter(property = "failOnError", defaultValue = "true")
+    private boolean failOnError;
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        RepositoryConfigHolder.manualSet(
+                System.getProperty("java.io.tmpdir"),
+                "https://your.repo",
+                StrUtil.nullToEmpty(repositoryDir),
+                false);
+        Path dir = RepositoryConfigHolder.buildRepositoryPath();
+        int parallelism = threads != null && threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+
+        TemplateIntegrityChecker.VerifyReport report;
+        try {
+            report = TemplateIntegrityChecker.verifyRepository(dir, parallelism);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Verify repository failed: " + dir, e);
+        }
+
+        getLog().info("\n========== Repository Verification ==========\n"
+                + "仓库目录: " + dir + "\n"
+                + "登记文件: %d, 通过: %d, 跳过(无有效SHA256): %d, 缺失: %d, 损坏: %d%n".formatted(
+                        report.files(), report.verified(), report.skipped(),
+                        report.missing().size(), report.corrupted().size())
+                + "校验数据: %.1f MB (实际读取 %.1f MB), 耗时 %.1f ms, 线程 %d%n".formatted(
+                        report.bytes() / 1048576.0, report.hashedBytes() / 1048576.0,
+                        report.elapsedNanos() / 1e6, parallelism)
+                + "吞吐量: %.1f MB/s, %.0f 文件/s".formatted(report.megabytesPerSecond(), report.filesPerSecond()));
+        logFiles("缺失", report.missing());
+        logFiles("损坏", report.corrupted());
+
+        if (failOnError && !report.isClean()) {
+            throw new MojoFailureException("模板仓库校验未通过: 缺失 %d, 损坏 %d".formatted(
+                    report.missing().size(), report.corrupted().size()));
+        }
+    }
+
+    private void logFiles(String label, List<String> files) {
+        for (int i = 0; i < Math.min(files.size(), MAX_LISTED_FILES); i++) {
+            getLog().warn(label + ": " + files.get(i));
+        }
+        if (files.size() > MAX_LISTED_FILES) {
+            getLog().warn(label + ": ... 其余 " + (files.size() - MAX_LISTED_FILES) + " 个文件");
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package top.codestyle.mcp.service;
+
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springaicommunity.mcp.annotation.McpTool;
+import org.springaicommunity.mcp.annotation.McpToolParam;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import top.codestyle.mcp.config.RepositoryConfig;
+import top.codestyle.mcp.metrics.CodestyleMetrics;
+import top.codestyle.mcp.model.meta.LocalMetaInfo;
+import top.codestyle.mcp.service.CodestyleService.ToolResult;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 代码模板搜索和内容获取服务(ASYNC模式)
+ * spring.ai.mcp.server.type=ASYNC时注册,工具返回Mono: 本地检索、目录树构建和模板读取在有界的工具线程池中执行,
+ * 远程检索经OkHttp异步请求,本地缺失模板组的下载提交到独立的下载线程池,等待期间不占用工具线程,
+ * 一个慢下载不会阻塞同一客户端的其他工具调用。工具线程池排满时立即返回繁忙提示
+ *
+ * @author movclantian
+ * @since 2026-10-18
+ */
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "spring.ai.mcp.server", name = "type", havingValue = "ASYNC")
+public class AsyncCodestyleService {
+
+    private static final int DOWNLOAD_QUEUE_CAPACITY = 64;
+
+    private final RepositoryConfig repositoryConfig;
+    private final CodestyleService codestyleService;
+    private final TemplateService templateService;
+
+    private ThreadPoolExecutor toolExecutor;
+    private ThreadPoolExecutor downloadExecutor;
+    private Scheduler toolScheduler;
+
+    /**
+     * 创建工具线程池和下载线程池
+     */
+    @PostConstruct
+    public void init() {
+        toolExecutor = newExecutor("codestyle-tool-", repositoryConfig.getAsyncToolThreads(),
+                repositoryConfig.getAsyncToolQueueCapacity());
+        downloadExecutor = newExecutor("template-download-", repositoryConfig.getAsyncDownloadThreads(),
+                DOWNLOAD_QUEUE_CAPACITY);
+        toolScheduler = Schedulers.fromExecutorService(toolExecutor, "codestyle-tool");
+        CodestyleMetrics.gauge("codestyle.async.active", toolExecutor, ThreadPoolExecutor::getActiveCount,
+                "pool", "tool");
+        CodestyleMetrics.gauge("codestyle.async.queued", toolExecutor, e -> e.getQueue().size(), "pool", "tool");
+        CodestyleMetrics.gauge("codestyle.async.active", downloadExecutor, ThreadPoolExecutor::getActiveCount,
+                "pool", "download");
+        CodestyleMetrics.gauge("codestyle.async.queued", downloadExecutor, e -> e.getQueue().size(),
+                "pool", "download");
+    }
+
+    /**
+     * 停止工具线程池和下载线程池
+     */
+    @PreDestroy
+    public void destroy() {
+        toolScheduler.dispose();
+        downloadExecutor.shutdownNow();
+    }
+
+    /**
+     * 搜索代码模板
+     *
+     * @param templateKeyword 模板提示词,如: CRUD, backend, frontend等
+     * @return 模板目录树和描述信息
+     */
+    @McpTool(name = "codestyleSearch", description = "根据模板提示词搜索代码模板库，返回匹配的模板目录树和模板组介绍。")
+    public Mono<String> codestyleSearch(
+            @McpToolParam(description = "模板提示词，如: CRUD, bankend, frontend等") String templateKeyword) {
+        return instrument("codestyleSearch", () -> (templateService.isRemoteSearchEnabled()
+                ? searchRemote(templateKeyword)
+                : onToolThread(() -> codestyleService.searchLocal(templateKeyword)))
+                .onErrorResume(e -> !(e instanceof RejectedExecutionException), e -> Mono.just(
+                        new ToolResult(codestyleService.searchFailed(e), CodestyleMetrics.OUTCOME_ERROR))));
+    }
+
+    /**
+     * 分页检索代码模板
+     *
+     * @param templateKeyword 模板提示词
+     * @param topK            每页数量,默认5,最大50
+     * @param cursor          分页游标,取自上一页结果
+     * @param minScore        最低相关度得分,低于该得分的结果将被截断
+     * @return 按相关度排序的模板组列表
+     */
+    @McpTool(name = "codestyleRankedSearch", description = "根据模板提示词返回按相关度排序的前K个模板组(含得分、groupId/artifactId和简介)，支持游标分页。提示词命中不准时可用于一次性挑选模板组。")
+    public Mono<String> codestyleRankedSearch(
+            @McpToolParam(description = "模板提示词，如: CRUD, bankend, frontend等") String templateKeyword,
+            @McpToolParam(description = "每页数量，默认5，最大50", required = false) Integer topK,
+            @McpToolParam(description = "分页游标，取自上一页结果中的下一页游标，首页不传", required = false) String cursor,
+            @McpToolParam(description = "最低相关度得分，低于该得分的结果将被截断", required = false) Float minScore) {
+        return instrument("codestyleRankedSearch",
+                () -> onToolThread(() -> codestyleService.rankedSearch(templateKeyword, topK, cursor, minScore)));
+    }
+
+    /**
+     * 获取模板文件内容
+     *
+     * @param templatePath 模板文件路径,如:
+     *                     backend/CRUD/1.0.0/src/main/java/com/air/controller/Controller.ftl
+     * @return 模板文件的详细信息(变量+内容)
+     */
+    @McpTool(name = "getTemplateByPath", description = "传入模板文件路径,获取模板文件的详细内容(包括变量说明和模板代码)")
+    public Mono<String> getTemplateByPath(
+            @McpToolParam(description = "模板文件路径,如:backend/CRUD/1.0.0/src/main/java/com/air/controller/Controller.ftl") String templatePath) {
+        return instrument("getTemplateByPath", () -> onToolThread(() -> templateService.searchLocalByPath(templatePath))
+                .switchIfEmpty(Mono.defer(() -> downloadByPath(templatePath)))
+                .map(matched -> codestyleService.templateContent(templatePath, matched))
+                .defaultIfEmpty(codestyleService.templateContent(templatePath, null)));
+    }
+
+    /**
+     * 远程检索模式: 异步获取远程元配置,本地缺失时在下载线程池中下载,再回到工具线程构建目录树
+     *
+     * @param templateKeyword 模板提示词
+     * @return 搜索结果
+     */
+    private Mono<ToolResult> searchRemote(String templateKeyword) {
+        return Mono.fromFuture(() -> templateService.fetchRemoteMetaConfigAsync(templateKeyword))
+                .subscribeOn(toolScheduler)
+                .publishOn(toolScheduler)
+                // 下载结果由同一模板组的所有调用共享,取消本次调用时不取消下载
+                .flatMap(remoteConfig -> Mono.fromFuture(
+                                templateService.ensureTemplateAsync(remoteConfig, downloadExecutor), true)
+                        .publishOn(toolScheduler)
+                        .map(available -> codestyleService.renderSearchResult(templateKeyword, remoteConfig)))
+                .switchIfEmpty(Mono.fromSupplier(() -> codestyleService.remoteUnavailable(templateKeyword)));
+    }
+
+    /**
+     * 本地未找到模板时从远程下载所属模板组后重新查找,失败时视为未找到
+     *
+     * @param templatePath 模板文件路径,格式: groupId/artifactId/version/filePath/filename
+     * @return 模板元信息
+     */
+    private Mono<LocalMetaInfo> downloadByPath(String templatePath) {
+        String[] parts = templatePath.split("/");
+        if (parts.length < 2) {
+            return Mono.empty();
+        }
+        return Mono.fromFuture(() -> templateService.fetchRemoteMetaConfigAsync(parts[1]))
+                .flatMap(remoteConfig -> Mono.fromFuture(
+                        templateService.smartDownloadTemplateAsync(remoteConfig, downloadExecutor), true))
+                .filter(Boolean::booleanValue)
+                .publishOn(toolScheduler)
+                .flatMap(success -> Mono.fromCallable(() -> templateService.searchLocalByPath(templatePath)))
+                .onErrorResume(e -> !(e instanceof RejectedExecutionException), e -> Mono.empty());
+    }
+
+    private <T> Mono<T> onToolThread(Callable<T> task) {
+        return Mono.fromCallable(task).subscribeOn(toolScheduler);
+    }
+
+    /**
+     * 记录工具耗时和结果,线程池排满时返回繁忙提示
+     *
+     * @param tool 工具名
+     * @param call 工具执行过程
+     * @return 返回给客户端的文本
+     */
+    private Mono<String> instrument(String tool, Supplier<Mono<ToolResult>> call) {
+        return Mono.defer(() -> {
+            Timer.Sample sample = CodestyleMetrics.start();
+            return call.get()
+                    .onErrorResume(RejectedExecutionException.class, e -> Mono.just(
+                            new ToolResult("服务繁忙,请稍后重试", CodestyleMetrics.OUTCOME_BUSY)))
+                    .doOnNext(result -> CodestyleMetrics.stopTool(sample, tool, result.outcome()))
+                    .doOnError(e -> CodestyleMetrics.stopTool(sample, tool, CodestyleMetrics.OUTCOME_ERROR))
+                    .map(ToolResult::text);
+        });
+    }
+
+    private static ThreadPoolExecutor newExecutor(String namePrefix, int threads, int queueCapacity) {
+        AtomicInteger seq = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(queueCapacity),
+                r -> {
+                    var thread = new Thread(r, namePrefix + seq.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+}
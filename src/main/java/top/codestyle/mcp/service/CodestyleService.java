@@ -1,20 +1,21 @@
 package top.codestyle.mcp.service;
 
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import org.springaicommunity.mcp.annotation.McpTool;
 import org.springaicommunity.mcp.annotation.McpToolParam;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import top.codestyle.mcp.config.RepositoryConfig;
 import top.codestyle.mcp.config.RepositoryConfigHolder;
 import top.codestyle.mcp.config.RepositoryConfigStub;
+import top.codestyle.mcp.metrics.CodestyleMetrics;
 import top.codestyle.mcp.model.meta.LocalMetaInfo;
-import top.codestyle.mcp.model.sdk.MetaInfo;
 import top.codestyle.mcp.model.sdk.RemoteMetaConfig;
 import top.codestyle.mcp.model.tree.TreeNode;
 import top.codestyle.mcp.util.PromptUtils;
 import java.io.IOException;
 import java.util.LinkedHashMap;
-import java.util.List;
 import java.util.Map;
 
 /**
@@ -24,8 +25,11 @@ import java.util.Map;
  * @since 2025-12-03
  */
 @Service
-@RequiredArgsConstructor
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
 public class CodestyleService {
+    private static final int DEFAULT_TOP_K = 5;
+    private static final int MAX_TOP_K = 50;
+
     private final RepositoryConfig repositoryConfig;
     private final TemplateService templateService;
     private final PromptService promptService;
@@ -35,12 +39,16 @@ public class CodestyleService {
     public CodestyleService(boolean remoteEnabled,
                             String localRepoDir,
                             String remoteBaseUrl) {
-        this.repositoryConfig   = null;
+        RepositoryConfigStub config = new RepositoryConfigStub(remoteEnabled, localRepoDir, remoteBaseUrl);
+        this.repositoryConfig   = config;
         this.luceneIndexService = new LuceneIndexService(localRepoDir);
         this.promptService      = new PromptService();
         this.templateService    = new TemplateService(
-                new RepositoryConfigStub(remoteEnabled, localRepoDir, remoteBaseUrl),
-                luceneIndexService);
+                config,
+                luceneIndexService,
+                new TemplateCatalogService(config),
+                new TemplateContentService(config),
+                new RemoteSearchCacheService(config));
     }
 
     /* 工具方法：拿远程地址 —— 直接问 Holder */
@@ -60,73 +68,236 @@ public class CodestyleService {
     @McpTool(name = "codestyleSearch", description = "根据模板提示词搜索代码模板库，返回匹配的模板目录树和模板组介绍。")
     public String codestyleSearch(
             @McpToolParam(description = "模板提示词，如: CRUD, bankend, frontend等") String templateKeyword) {
+        Timer.Sample sample = CodestyleMetrics.start();
+        String outcome = CodestyleMetrics.OUTCOME_ERROR;
         try {
-            String groupId;
-            String artifactId;
-            String description;
-
-            if (templateService.isRemoteSearchEnabled()) {
-                // 远程检索模式
-                RemoteMetaConfig remoteConfig = templateService.fetchRemoteMetaConfig(templateKeyword);
-
-                if (remoteConfig == null) {
-                    return """
-                            远程仓库不可访问,无法获取模板"%s"
-
-                            建议尝试以下模板提示词：
-                            【后端】CRUD, controller, service, mapper, entity
-                            【前端】CRUD, index, form, modal
-                            【通用】bankend, frontend
-
-                            请检查模板提示词是否正确，或联系管理员
-                            """.formatted(templateKeyword);
-                }
-
-                // 同步检查并更新本地仓库(必须等待下载完成才能构建目录树)
-                templateService.smartDownloadTemplate(remoteConfig);
-
-                groupId = remoteConfig.getGroupId();
-                artifactId = remoteConfig.getArtifactId();
-                description = remoteConfig.getDescription();
-            } else {
-                // 本地Lucene检索模式
-                LuceneIndexService.SearchResult searchResult = luceneIndexService.fetchLocalMetaConfig(templateKeyword);
-
-                if (searchResult == null) {
-                    return """
-                            本地仓库未找到匹配的模板"%s"。
-
-                            建议尝试以下模板提示词：
-                            【后端】CRUD, controller, service, mapper, entity
-                            【前端】CRUD, index, form, modal
-                            【通用】增删改查, 代码生成
-
-                            如需从远程获取模板,请设置
-                            repository.remote-search-enabled=true
-                            """.formatted(templateKeyword);
-                }
-
-                groupId = searchResult.groupId();
-                artifactId = searchResult.artifactId();
-                description = searchResult.description();
-            }
+            ToolResult result = templateService.isRemoteSearchEnabled()
+                    ? searchRemote(templateKeyword)
+                    : searchLocal(templateKeyword);
+            outcome = result.outcome();
+            return result.text();
+        } catch (Exception e) {
+            return searchFailed(e);
+        } finally {
+            CodestyleMetrics.stopTool(sample, "codestyleSearch", outcome);
+        }
+    }
 
-            // 从本地仓库搜索匹配的模板元信息
-            List<MetaInfo> metaInfos = templateService.searchLocalRepository(groupId, artifactId);
+    /**
+     * 远程检索模式
+     *
+     * @param templateKeyword 模板提示词
+     * @return 搜索结果
+     */
+    private ToolResult searchRemote(String templateKeyword) {
+        RemoteMetaConfig remoteConfig = templateService.fetchRemoteMetaConfig(templateKeyword);
+        if (remoteConfig == null) {
+            return remoteUnavailable(templateKeyword);
+        }
 
-            if (metaInfos.isEmpty()) {
-                return "本地仓库模板文件不完整,请检查模板目录";
-            }
+        // 本地已安装的模板组立即使用本地版本,后台校验并更新;本地缺失时同步下载后才能构建目录树
+        templateService.ensureTemplate(remoteConfig);
+        return renderSearchResult(templateKeyword, remoteConfig);
+    }
 
-            // 构建模板目录树结构
-            TreeNode treeNode = PromptUtils.buildTree(metaInfos);
-            String treeStr = PromptUtils.buildTreeStr(treeNode, "").trim();
+    /**
+     * 本地Lucene检索模式
+     *
+     * @param templateKeyword 模板提示词
+     * @return 搜索结果
+     */
+    ToolResult searchLocal(String templateKeyword) {
+        if (!awaitIndex()) {
+            return indexWarming();
+        }
+        LuceneIndexService.SearchResult searchResult = luceneIndexService.fetchLocalMetaConfig(templateKeyword);
 
-            // 格式化并返回搜索结果
-            return promptService.buildSearchResult(templateKeyword, treeStr, description);
-        } catch (Exception e) {
-            return "模板搜索失败: " + e.getMessage();
+        if (searchResult == null) {
+            return new ToolResult("""
+                    本地仓库未找到匹配的模板"%s"。
+
+                    建议尝试以下模板提示词：
+                    【后端】CRUD, controller, service, mapper, entity
+                    【前端】CRUD, index, form, modal
+                    【通用】增删改查, 代码生成
+
+                    如需从远程获取模板,请设置
+                    repository.remote-search-enabled=true
+                    """.formatted(templateKeyword), CodestyleMetrics.OUTCOME_NOT_FOUND);
+        }
+
+        return renderSearchResult(templateKeyword, searchResult.groupId(), searchResult.artifactId(),
+                searchResult.description());
+    }
+
+    /**
+     * 尚无可用索引时等待启动时的索引构建
+     *
+     * @return 索引是否可检索
+     */
+    private boolean awaitIndex() {
+        return luceneIndexService.awaitReady(repositoryConfig.getIndexWarmupWaitMs());
+    }
+
+    /**
+     * 索引仍在构建时的提示
+     *
+     * @return 搜索结果
+     */
+    private ToolResult indexWarming() {
+        return new ToolResult("本地模板索引正在构建中,请稍后重试", CodestyleMetrics.OUTCOME_WARMING);
+    }
+
+    /**
+     * 远程仓库不可访问时的提示
+     *
+     * @param templateKeyword 模板提示词
+     * @return 搜索结果
+     */
+    ToolResult remoteUnavailable(String templateKeyword) {
+        return new ToolResult("""
+                远程仓库不可访问,无法获取模板"%s"
+
+                建议尝试以下模板提示词：
+                【后端】CRUD, controller, service, mapper, entity
+                【前端】CRUD, index, form, modal
+                【通用】bankend, frontend
+
+                请检查模板提示词是否正确，或联系管理员
+                """.formatted(templateKeyword), CodestyleMetrics.OUTCOME_ERROR);
+    }
+
+    /**
+     * 搜索异常时的提示
+     *
+     * @param e 异常
+     * @return 提示信息
+     */
+    String searchFailed(Throwable e) {
+        return "模板搜索失败: " + e.getMessage();
+    }
+
+    /**
+     * 构建远程模板组的搜索结果,调用方需先确保模板组已在本地可用
+     *
+     * @param templateKeyword 模板提示词
+     * @param remoteConfig    远程模板配置
+     * @return 搜索结果
+     */
+    ToolResult renderSearchResult(String templateKeyword, RemoteMetaConfig remoteConfig) {
+        return renderSearchResult(templateKeyword, remoteConfig.getGroupId(), remoteConfig.getArtifactId(),
+                remoteConfig.getDescription());
+    }
+
+    /**
+     * 构建模板组的搜索结果
+     *
+     * @param templateKeyword 模板提示词
+     * @param groupId         组ID
+     * @param artifactId      项目ID
+     * @param description     模板组介绍
+     * @return 搜索结果
+     */
+    private ToolResult renderSearchResult(String templateKeyword, String groupId, String artifactId,
+                                          String description) {
+        // 目录树及除关键词外的搜索结果按模板组版本缓存,同一版本只构建和渲染一次
+        String searchBody = templateService.getRendered(groupId, artifactId, "search:" + description,
+                metaInfos -> {
+                    Timer.Sample treeSample = CodestyleMetrics.start();
+                    TreeNode treeNode = PromptUtils.buildTree(metaInfos);
+                    String treeStr = PromptUtils.buildTreeStr(treeNode, "",
+                            repositoryConfig.getTreeMaxNodes(), repositoryConfig.getTreeMaxDepth()).trim();
+                    CodestyleMetrics.stopStage(treeSample, CodestyleMetrics.STAGE_TREE_BUILD);
+                    return promptService.buildSearchResultBody(treeStr, description);
+                });
+
+        if (searchBody == null) {
+            return new ToolResult("本地仓库模板文件不完整,请检查模板目录", CodestyleMetrics.OUTCOME_ERROR);
+        }
+
+        // 拼接关键词并返回搜索结果
+        return new ToolResult(promptService.completeSearchResult(templateKeyword, searchBody),
+                CodestyleMetrics.OUTCOME_SUCCESS);
+    }
+
+    /**
+     * 分页检索代码模板
+     * 基于本地Lucene索引一次返回按相关度排序的前K个模板组,便于在一次调用内挑选模板组
+     *
+     * @param templateKeyword 模板提示词
+     * @param topK            每页数量,默认5,最大50
+     * @param cursor          分页游标,取自上一页结果
+     * @param minScore        最低相关度得分,低于该得分的结果将被截断
+     * @return 按相关度排序的模板组列表
+     */
+    @McpTool(name = "codestyleRankedSearch", description = "根据模板提示词返回按相关度排序的前K个模板组(含得分、groupId/artifactId和简介)，支持游标分页。提示词命中不准时可用于一次性挑选模板组。")
+    public String codestyleRankedSearch(
+            @McpToolParam(description = "模板提示词，如: CRUD, bankend, frontend等") String templateKeyword,
+            @McpToolParam(description = "每页数量，默认5，最大50", required = false) Integer topK,
+            @McpToolParam(description = "分页游标，取自上一页结果中的下一页游标，首页不传", required = false) String cursor,
+            @McpToolParam(description = "最低相关度得分，低于该得分的结果将被截断", required = false) Float minScore) {
+        Timer.Sample sample = CodestyleMetrics.start();
+        String outcome = CodestyleMetrics.OUTCOME_ERROR;
+        try {
+            ToolResult result = rankedSearch(templateKeyword, topK, cursor, minScore);
+            outcome = result.outcome();
+            return result.text();
+        } finally {
+            CodestyleMetrics.stopTool(sample, "codestyleRankedSearch", outcome);
+        }
+    }
+
+    /**
+     * 基于本地Lucene索引分页检索
+     *
+     * @param templateKeyword 模板提示词
+     * @param topK            每页数量
+     * @param cursor          分页游标
+     * @param minScore        最低相关度得分
+     * @return 检索结果
+     */
+    ToolResult rankedSearch(String templateKeyword, Integer topK, String cursor, Float minScore) {
+        if (!awaitIndex()) {
+            return indexWarming();
+        }
+        int size = topK == null || topK <= 0 ? DEFAULT_TOP_K : Math.min(topK, MAX_TOP_K);
+        LuceneIndexService.SearchPage page;
+        try {
+            page = luceneIndexService.searchTopK(templateKeyword, size, cursor, minScore);
+        } catch (IllegalArgumentException e) {
+            // 游标格式错误或已过期时明确报错,避免客户端反复拿到同一页
+            return new ToolResult(e.getMessage(), CodestyleMetrics.OUTCOME_ERROR);
+        } catch (IOException | RuntimeException e) {
+            return new ToolResult(searchFailed(e), CodestyleMetrics.OUTCOME_ERROR);
         }
+        if (page.hits().isEmpty()) {
+            return new ToolResult("本地仓库未找到匹配的模板\"%s\"，请尝试其他模板提示词".formatted(templateKeyword),
+                    CodestyleMetrics.OUTCOME_NOT_FOUND);
+        }
+        return new ToolResult(promptService.buildRankedResult(
+                templateKeyword,
+                String.valueOf(page.totalHits()),
+                buildRankedList(page).trim(),
+                page.nextCursor() != null ? page.nextCursor() : "无"), CodestyleMetrics.OUTCOME_SUCCESS);
+    }
+
+    /**
+     * 构建分页检索结果列表的字符串表示
+     *
+     * @param page 检索结果页
+     * @return 格式化的结果列表字符串
+     */
+    private static String buildRankedList(LuceneIndexService.SearchPage page) {
+        StringBuilder sb = new StringBuilder();
+        int index = page.start();
+        for (var hit : page.hits()) {
+            sb.append(index++).append(". ")
+                    .append(hit.groupId()).append('/').append(hit.artifactId())
+                    .append(String.format(" (得分: %.3f)", hit.score()))
+                    .append(" - ").append(PromptUtils.abbreviate(hit.description(), 80))
+                    .append('\n');
+        }
+        return sb.toString();
     }
 
     /**
@@ -142,13 +313,29 @@ public class CodestyleService {
     public String getTemplateByPath(
             @McpToolParam(description = "模板文件路径,如:backend/CRUD/1.0.0/src/main/java/com/air/controller/Controller.ftl") String templatePath)
             throws IOException {
+        Timer.Sample sample = CodestyleMetrics.start();
+        String outcome = CodestyleMetrics.OUTCOME_ERROR;
+        try {
+            ToolResult result = templateContent(templatePath, templateService.searchByPath(templatePath));
+            outcome = result.outcome();
+            return result.text();
+        } finally {
+            CodestyleMetrics.stopTool(sample, "getTemplateByPath", outcome);
+        }
+    }
 
-        // 使用精确路径搜索模板
-        LocalMetaInfo matchedTemplate = templateService.searchByPath(templatePath);
-
+    /**
+     * 构建模板文件的详细内容
+     *
+     * @param templatePath    模板文件路径
+     * @param matchedTemplate 按路径找到的模板,可为null
+     * @return 模板文件的详细信息,未找到时返回提示
+     */
+    ToolResult templateContent(String templatePath, LocalMetaInfo matchedTemplate) {
         // 校验搜索结果
         if (matchedTemplate == null) {
-            return String.format("未找到路径为 '%s' 的模板文件,请检查路径是否正确。", templatePath);
+            return new ToolResult(String.format("未找到路径为 '%s' 的模板文件,请检查路径是否正确。", templatePath),
+                    CodestyleMetrics.OUTCOME_NOT_FOUND);
         }
 
         // 构建变量信息
@@ -167,9 +354,19 @@ public class CodestyleService {
         String varInfo = vars.isEmpty() ? "无变量" : PromptUtils.buildVarString(vars).trim();
 
         // 使用PromptService模板构建最终输出
-        return promptService.buildPrompt(
+        return new ToolResult(promptService.buildPrompt(
                 templatePath,
                 varInfo,
-                matchedTemplate.getTemplateContent() != null ? matchedTemplate.getTemplateContent() : "");
+                matchedTemplate.getTemplateContent() != null ? matchedTemplate.getTemplateContent() : ""),
+                CodestyleMetrics.OUTCOME_SUCCESS);
+    }
+
+    /**
+     * 工具调用结果
+     *
+     * @param text    返回给客户端的文本
+     * @param outcome 指标中记录的调用结果
+     */
+    record ToolResult(String text, String outcome) {
     }
 }
\ No newline at end of file
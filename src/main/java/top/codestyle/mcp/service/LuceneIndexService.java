@@ -10,150 +10,596 @@ import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.cn.smart.SmartChineseAnalyzer;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StoredField;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.document.TextField;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.MultiBits;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.queryparser.classic.QueryParser;
-import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.search.CollectorManager;
+import org.apache.lucene.search.MultiCollectorManager;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ReferenceManager;
+import org.apache.lucene.search.Scorable;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.SimpleCollector;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopScoreDocCollectorManager;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import top.codestyle.mcp.cache.CacheStats;
+import top.codestyle.mcp.cache.LocalCache;
 import top.codestyle.mcp.config.RepositoryConfig;
+import top.codestyle.mcp.config.RepositoryConfigStub;
+import top.codestyle.mcp.metrics.CodestyleMetrics;
 import top.codestyle.mcp.model.meta.LocalMetaConfig;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Paths;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Lucene本地索引服务 - 模板索引和检索
+ * 使用常驻IndexWriter,单模板更新先进入待提交队列,按批量阈值或时间间隔合并提交
+ * 启动时直接打开磁盘上已有的索引提供检索,校准或重建在后台进行
  *
  * @author movclantian
  * @since 2025-12-02
  */
 @Service
-@RequiredArgsConstructor
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
 public class LuceneIndexService {
 
-    private static final String INDEX_DIR = "lucene-index",
-            F_GID = "groupId",
+    /**
+     * 索引目录名,位于仓库根目录下
+     */
+    public static final String INDEX_DIR = "lucene-index";
+
+    private static final String F_GID = "groupId",
             F_AID = "artifactId",
             F_DESC = "description",
             F_PATH = "metaPath",
-            F_CONTENT = "content";
+            F_CONTENT = "content",
+            F_README = "readmePath",
+            F_FINGERPRINT = "fingerprint",
+            K_SCHEMA_VERSION = "schemaVersion";
+
+    /**
+     * 索引结构版本,文档字段变化时递增,启动时版本不一致将全量重建
+     */
+    private static final String SCHEMA_VERSION = "2";
+
+    /**
+     * 待提交队列中表示删除模板的占位文档
+     */
+    private static final Document DELETED = new Document();
 
     private final RepositoryConfig repositoryConfig;
-    private final String localRepoDir;       // 插件直接路径
-    private final ReentrantReadWriteLock indexLock = new ReentrantReadWriteLock();
+    /**
+     * 写入锁,串行化重建与批量提交,检索不受影响
+     */
+    private final ReentrantLock indexLock = new ReentrantLock();
+    /**
+     * 待提交的单模板更新(metaPath -> 文档,DELETED表示删除),同一模板的多次更新只保留最新一次
+     */
+    private final Map<String, Document> pendingUpserts = new ConcurrentHashMap<>();
     private Directory directory;
     private Analyzer analyzer;
+    private volatile IndexWriter writer;
+    private ScheduledExecutorService committer;
+    /**
+     * 最近一次全量重建或增量校准的统计
+     */
+    private volatile IndexBuildStats lastBuildStats;
+    /**
+     * 索引代数,搜索器每次刷新到新的索引内容时递增,用于判定检索缓存是否失效
+     */
+    private final AtomicLong indexGeneration = new AtomicLong();
+    /**
+     * 检索结果缓存(规范化关键词 -> 检索结果)
+     */
+    private LocalCache<String, CachedResult> searchCache;
+    /**
+     * 常驻搜索器管理器,仅在索引变更后刷新,检索时通过acquire/release引用计数使用
+     */
+    private volatile SearcherManager searcherManager;
+    /**
+     * 启动时的增量校准或全量重建任务
+     */
+    private volatile CompletableFuture<Void> warmup = CompletableFuture.completedFuture(null);
+    /**
+     * 是否已有可检索的索引:启动时已存在结构版本一致的非空索引,或启动时的构建已结束
+     */
+    private volatile boolean ready;
+    /**
+     * 服务关闭中,后台构建跳过剩余模板并放弃提交
+     */
+    private volatile boolean closing;
 
     /**
      * 初始化Lucene索引服务
-     * 创建索引目录,初始化中文分词器,并重建索引
+     * 创建索引目录,初始化中文分词器,打开常驻写入器并启动定时提交
+     * 已有索引且结构版本一致时增量校准,否则全量重建;开启后台构建时不等待构建完成,期间检索使用已有索引
      *
      * @throws IOException 索引目录创建失败
      */
     @PostConstruct
     public void init() throws IOException {
-        var indexPath = Paths.get(getRepoDir(), INDEX_DIR);
+        var indexPath = Paths.get(repositoryConfig.getRepositoryDir(), INDEX_DIR);
         FileUtil.mkdir(indexPath.toFile());
         directory = FSDirectory.open(indexPath);
         analyzer = new SmartChineseAnalyzer();
-        rebuildIndex();
+        boolean indexExists = DirectoryReader.indexExists(directory);
+        openWriter();
+        boolean schemaMatched = indexExists && isSchemaVersionMatched();
+        searchCache = new LocalCache<>(repositoryConfig.getSearchCacheMaxEntries(),
+                TimeUnit.SECONDS.toMillis(repositoryConfig.getSearchCacheTtlSeconds()));
+        registerMetrics();
+        ready = schemaMatched && writer.getDocStats().numDocs > 0;
+        boolean incremental = repositoryConfig.isIndexIncremental() && schemaMatched;
+
+        long interval = Math.max(1, repositoryConfig.getIndexCommitIntervalMs());
+        committer = Executors.newSingleThreadScheduledExecutor(r -> {
+            var thread = new Thread(r, "lucene-index-committer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        committer.scheduleWithFixedDelay(this::commitQuietly, interval, interval, TimeUnit.MILLISECONDS);
+
+        if (!repositoryConfig.isIndexBackgroundWarmup()) {
+            buildOnStartup(incremental);
+            return;
+        }
+        warmup = CompletableFuture.runAsync(() -> {
+            try {
+                buildOnStartup(incremental);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, r -> {
+            var thread = new Thread(r, "lucene-index-warmup");
+            thread.setDaemon(true);
+            thread.start();
+        });
+    }
+
+    /**
+     * 打开常驻写入器和搜索器管理器,写入器从最近一次提交开始
+     * 所有写入都显式提交,关闭时不提交,中途放弃的构建不会落盘
+     *
+     * @throws IOException 索引打开失败
+     */
+    private void openWriter() throws IOException {
+        var config = new IndexWriterConfig(analyzer).setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND)
+                .setCommitOnClose(false);
+        writer = new IndexWriter(directory, config);
+        var previous = searcherManager;
+        var manager = new SearcherManager(writer, null);
+        manager.addListener(new ReferenceManager.RefreshListener() {
+            @Override
+            public void beforeRefresh() {
+            }
+
+            @Override
+            public void afterRefresh(boolean didRefresh) {
+                if (didRefresh)
+                    indexGeneration.incrementAndGet();
+            }
+        });
+        searcherManager = manager;
+        if (previous != null) {
+            // 新搜索器基于重新打开的索引,使检索缓存失效
+            indexGeneration.incrementAndGet();
+            previous.close();
+        }
+    }
+
+    /**
+     * 放弃构建失败后写入器中未提交的删除和写入,避免之后的提交或刷新发布不完整的索引
+     * 回滚会关闭写入器,服务未关闭时从最近一次提交重新打开
+     *
+     * @param cause 构建失败的原因,重新打开失败时作为被抑制异常附加
+     */
+    private void discardUncommitted(Exception cause) {
+        try {
+            writer.rollback();
+            if (!closing)
+                openWriter();
+        } catch (IOException | RuntimeException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    /**
+     * 启动时校准或重建索引,结束后(含失败)标记索引可检索
+     *
+     * @param incremental 是否增量校准
+     * @throws IOException 索引读写失败
+     */
+    private void buildOnStartup(boolean incremental) throws IOException {
+        try {
+            if (incremental) {
+                reconcileIndex();
+            } else {
+                rebuildIndex();
+            }
+        } finally {
+            ready = true;
+        }
+    }
+
+    /**
+     * 等待可检索的索引
+     * 启动时已有可用索引时立即返回,否则最多等待启动时的索引构建结束
+     *
+     * @param timeoutMs 最长等待时间(毫秒)
+     * @return 索引是否可检索,等待超时返回false
+     */
+    public boolean awaitReady(long timeoutMs) {
+        if (ready)
+            return true;
+        try {
+            warmup.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return ready;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ready;
+        } catch (ExecutionException e) {
+            // 构建失败时按索引中已有的内容检索
+        }
+        return true;
+    }
+
+    /**
+     * 索引是否可检索
+     *
+     * @return 启动时已有可用索引或启动时的构建已结束
+     */
+    public boolean isReady() {
+        return ready || warmup.isDone();
     }
 
     /**
      * 销毁Lucene索引服务
-     * 关闭索引目录资源
+     * 停止定时提交,提交剩余更新后关闭搜索器、写入器和索引目录
      *
      * @throws IOException 关闭失败
      */
     @PreDestroy
     public void destroy() throws IOException {
-        if (directory != null) directory.close();
+        closing = true;
+        if (committer != null) committer.shutdownNow();
+        // 等待后台构建放弃剩余模板并释放写入锁
+        indexLock.lock();
+        try {
+            // 构建被放弃时写入器已回滚关闭,不再提交
+            var w = writer;
+            if (w != null && w.isOpen()) commitPendingUpserts();
+            if (searcherManager != null) searcherManager.close();
+            if (w != null) w.close();
+            if (directory != null) directory.close();
+        } finally {
+            indexLock.unlock();
+        }
     }
 
     /**
      * 重建索引
-     * 扫描本地仓库所有meta.json文件并建立索引
+     * 清空索引后并行扫描本地仓库所有meta.json文件重新建立索引,一次提交并写入索引结构版本
+     * 构建失败或服务关闭时回滚,磁盘和搜索器中保留原有索引
      *
      * @throws IOException 索引写入失败
      */
     public void rebuildIndex() throws IOException {
-        indexLock.writeLock().lock();
+        indexLock.lock();
+        try {
+            long start = System.nanoTime();
+            AtomicInteger[] counters;
+            try {
+                writer.deleteAll();
+                counters = scanAndIndexTemplates(repositoryConfig.getRepositoryDir(), null);
+                writer.setLiveCommitData(Map.of(K_SCHEMA_VERSION, SCHEMA_VERSION).entrySet());
+                writer.commit();
+            } catch (IOException | RuntimeException e) {
+                discardUncommitted(e);
+                throw e;
+            }
+            searcherManager.maybeRefresh();
+            lastBuildStats = new IndexBuildStats(false, counters[0].get(), counters[1].get(), 0,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } finally {
+            indexLock.unlock();
+        }
+    }
+
+    /**
+     * 增量校准索引
+     * 比对索引中记录的文件指纹与磁盘上的meta.json/README.md,
+     * 仅重新索引新增或变化的模板组,并删除磁盘上已不存在的模板组,失败时回滚
+     *
+     * @throws IOException 索引读写失败
+     */
+    public void reconcileIndex() throws IOException {
+        indexLock.lock();
+        try {
+            long start = System.nanoTime();
+            var indexed = loadIndexedFingerprints();
+            AtomicInteger[] counters;
+            try {
+                counters = scanAndIndexTemplates(repositoryConfig.getRepositoryDir(), indexed);
+                for (var removedPath : indexed.keySet())
+                    writer.deleteDocuments(new Term(F_PATH, removedPath));
+                if (counters[1].get() > 0 || !indexed.isEmpty())
+                    writer.commit();
+            } catch (IOException | RuntimeException e) {
+                discardUncommitted(e);
+                throw e;
+            }
+            if (counters[1].get() > 0 || !indexed.isEmpty())
+                searcherManager.maybeRefresh();
+            lastBuildStats = new IndexBuildStats(true, counters[0].get(), counters[1].get(), indexed.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } finally {
+            indexLock.unlock();
+        }
+    }
+
+    /**
+     * 获取最近一次全量重建或增量校准的统计
+     *
+     * @return 索引构建统计,尚未构建时返回null
+     */
+    public IndexBuildStats getLastBuildStats() {
+        return lastBuildStats;
+    }
+
+    /**
+     * 检查已有索引的结构版本是否与当前版本一致
+     *
+     * @return 是否一致
+     */
+    private boolean isSchemaVersionMatched() {
+        var commitData = writer.getLiveCommitData();
+        if (commitData == null)
+            return false;
+        for (var entry : commitData) {
+            if (K_SCHEMA_VERSION.equals(entry.getKey()))
+                return SCHEMA_VERSION.equals(entry.getValue());
+        }
+        return false;
+    }
+
+    /**
+     * 读取索引中所有模板的指纹
+     *
+     * @return metaPath -> [指纹, README路径]
+     * @throws IOException 索引读取失败
+     */
+    private Map<String, String[]> loadIndexedFingerprints() throws IOException {
+        var result = new ConcurrentHashMap<String, String[]>();
+        var searcher = searcherManager.acquire();
         try {
-            var config = new IndexWriterConfig(analyzer).setOpenMode(IndexWriterConfig.OpenMode.CREATE);
-            try (var writer = new IndexWriter(directory, config)) {
-                scanAndIndexTemplates(writer, getRepoDir());   //  用统一工具
+            var reader = searcher.getIndexReader();
+            var liveDocs = MultiBits.getLiveDocs(reader);
+            var storedFields = reader.storedFields();
+            for (int i = 0; i < reader.maxDoc(); i++) {
+                if (liveDocs != null && !liveDocs.get(i))
+                    continue;
+                var doc = storedFields.document(i);
+                result.put(doc.get(F_PATH), new String[]{
+                        StrUtil.nullToEmpty(doc.get(F_FINGERPRINT)), StrUtil.nullToEmpty(doc.get(F_README))});
             }
         } finally {
-            indexLock.writeLock().unlock();
+            searcherManager.release(searcher);
         }
+        return result;
     }
 
     /**
-     * 扫描并索引模板
+     * 并行扫描并索引模板
+     * 各groupId目录并发枚举,meta.json解析和README读取交给有界工作线程池,结果直接写入线程安全的IndexWriter
      *
-     * @param writer   索引写入器
      * @param basePath 基础路径
-     * @throws IOException 扫描失败
+     * @param indexed  已索引模板的指纹(增量校准时传入,命中且未变化的模板跳过并从中移除),全量重建传null
+     * @return [扫描到的模板数, 写入的文档数]
+     * @throws IOException 索引写入失败
      */
-    private void scanAndIndexTemplates(IndexWriter writer, String basePath) throws IOException {
+    private AtomicInteger[] scanAndIndexTemplates(String basePath, Map<String, String[]> indexed) throws IOException {
+        var scanned = new AtomicInteger();
+        var written = new AtomicInteger();
+        var groupDirs = listGroupDirs(basePath);
+        if (groupDirs.isEmpty())
+            return new AtomicInteger[]{scanned, written};
+
+        int parallelism = repositoryConfig.getIndexParallelism() > 0
+                ? repositoryConfig.getIndexParallelism()
+                : Runtime.getRuntime().availableProcessors();
+        var threadIndex = new AtomicInteger();
+        // 队列有界,写满时由提交线程自行执行,避免大仓库一次性堆积全部任务
+        var pool = new ThreadPoolExecutor(parallelism, parallelism, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(parallelism * 16), r -> {
+                    var thread = new Thread(r, "lucene-index-builder-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+        try {
+            var tasks = groupDirs.stream()
+                    .map(groupDir -> CompletableFuture.supplyAsync(() -> listMetaFiles(groupDir), pool)
+                            .thenCompose(metaFiles -> CompletableFuture.allOf(metaFiles.stream()
+                                    .map(metaFile -> CompletableFuture.runAsync(() -> {
+                                        scanned.incrementAndGet();
+                                        if (indexTemplate(metaFile, indexed))
+                                            written.incrementAndGet();
+                                    }, pool))
+                                    .toArray(CompletableFuture[]::new))))
+                    .toArray(CompletableFuture[]::new);
+            CompletableFuture.allOf(tasks).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException io)
+                throw io.getCause();
+            throw e;
+        } finally {
+            pool.shutdown();
+        }
+        if (closing)
+            throw new IOException("索引服务已关闭,放弃本次构建");
+        return new AtomicInteger[]{scanned, written};
+    }
+
+    /**
+     * 索引单个模板
+     *
+     * @param metaFile meta.json文件
+     * @param indexed  已索引模板的指纹,全量重建时为null
+     * @return 是否写入了文档
+     */
+    private boolean indexTemplate(File metaFile, Map<String, String[]> indexed) {
+        if (closing)
+            return false;
+        var metaPath = metaFile.getAbsolutePath();
+        try {
+            if (indexed == null) {
+                var doc = buildTemplateDoc(metaFile);
+                if (doc == null)
+                    return false;
+                writer.addDocument(doc);
+                return true;
+            }
+            var stored = indexed.remove(metaPath);
+            if (stored != null && stored[0].equals(fingerprint(metaFile, stored[1])))
+                return false;
+            var doc = buildTemplateDoc(metaFile);
+            if (doc == null) {
+                // 已索引的模板变得无法解析时放回待删除集合,校准结束时删除旧文档
+                if (stored != null)
+                    indexed.put(metaPath, stored);
+                return false;
+            }
+            writer.updateDocument(new Term(F_PATH, metaPath), doc);
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 列出仓库下所有groupId目录(跳过索引目录)
+     *
+     * @param basePath 基础路径
+     * @return groupId目录列表
+     */
+    private List<File> listGroupDirs(String basePath) {
+        var result = new ArrayList<File>();
         var baseDir = new File(basePath);
         if (!baseDir.isDirectory())
-            return;
+            return result;
         var groupDirs = baseDir.listFiles(File::isDirectory);
         if (groupDirs == null)
-            return;
-
+            return result;
         for (var groupDir : groupDirs) {
-            if (INDEX_DIR.equals(groupDir.getName()))
-                continue;
-            var artifactDirs = groupDir.listFiles(File::isDirectory);
-            if (artifactDirs == null)
-                continue;
-            for (var artifactDir : artifactDirs) {
-                var metaFile = new File(artifactDir, "meta.json");
-                if (metaFile.exists())
-                    indexTemplate(writer, metaFile);
-            }
+            // 跳过索引目录和.staging等隐藏目录
+            if (!INDEX_DIR.equals(groupDir.getName()) && !groupDir.getName().startsWith("."))
+                result.add(groupDir);
         }
+        return result;
     }
 
     /**
-     * 索引单个模板
+     * 列出groupId目录下所有artifactId/meta.json文件
+     *
+     * @param groupDir groupId目录
+     * @return meta.json文件列表
+     */
+    private List<File> listMetaFiles(File groupDir) {
+        var result = new ArrayList<File>();
+        var artifactDirs = groupDir.listFiles(File::isDirectory);
+        if (artifactDirs == null)
+            return result;
+        for (var artifactDir : artifactDirs) {
+            var metaFile = new File(artifactDir, "meta.json");
+            if (metaFile.exists())
+                result.add(metaFile);
+        }
+        return result;
+    }
+
+    /**
+     * 解析单个模板并构建索引文档
      *
-     * @param writer   索引写入器
      * @param metaFile meta.json文件
+     * @return Lucene文档,解析失败返回null
      */
-    private void indexTemplate(IndexWriter writer, File metaFile) {
+    private Document buildTemplateDoc(File metaFile) {
         try {
             var meta = JSONUtil.toBean(FileUtil.readUtf8String(metaFile), LocalMetaConfig.class);
-            var desc = readDescription(metaFile.getParentFile(), meta);
-            writer.addDocument(createDoc(meta.getGroupId(), meta.getArtifactId(), desc, metaFile.getAbsolutePath()));
+            var readme = resolveReadme(metaFile.getParentFile(), meta);
+            var desc = readme != null && readme.exists() ? FileUtil.readUtf8String(readme) : meta.getArtifactId();
+            var readmePath = readme != null ? readme.getAbsolutePath() : "";
+            var doc = createDoc(meta.getGroupId(), meta.getArtifactId(), desc, metaFile.getAbsolutePath());
+            doc.add(new StoredField(F_README, readmePath));
+            doc.add(new StoredField(F_FINGERPRINT, fingerprint(metaFile, readmePath)));
+            return doc;
         } catch (Exception ignored) {
             // 单个模板索引失败不影响其他模板
+            return null;
         }
     }
 
     /**
-     * 从README.md读取描述信息
+     * 定位最新版本的README.md
      *
      * @param artifactDir 模板目录
      * @param meta        元配置信息
-     * @return 描述内容
+     * @return README.md文件,无版本配置时返回null
      */
-    private String readDescription(File artifactDir, LocalMetaConfig meta) {
+    private File resolveReadme(File artifactDir, LocalMetaConfig meta) {
         var configs = meta.getConfigs();
         if (configs == null || configs.isEmpty())
-            return meta.getArtifactId();
-        var readme = new File(artifactDir, configs.get(configs.size() - 1).getVersion() + File.separator + "README.md");
-        return readme.exists() ? FileUtil.readUtf8String(readme) : meta.getArtifactId();
+            return null;
+        return new File(artifactDir, configs.get(configs.size() - 1).getVersion() + File.separator + "README.md");
+    }
+
+    /**
+     * 计算模板文件指纹
+     * 由meta.json与最新版本README.md的修改时间和大小组成,无需读取文件内容
+     *
+     * @param metaFile   meta.json文件
+     * @param readmePath README.md路径,可为空
+     * @return 文件指纹
+     */
+    private static String fingerprint(File metaFile, String readmePath) {
+        var readme = StrUtil.isEmpty(readmePath) ? null : new File(readmePath);
+        return metaFile.lastModified() + ":" + metaFile.length() + "|" +
+                (readme != null && readme.exists() ? readme.lastModified() + ":" + readme.length() : "-");
     }
 
     /**
@@ -178,6 +624,8 @@ public class LuceneIndexService {
 
     /**
      * 更新单个模板的索引
+     * 更新先进入待提交队列,达到批量阈值时立即异步提交,否则由定时任务合并提交
+     * 此处不记录文件指纹,下次启动增量校准时会按磁盘内容重新索引该模板
      *
      * @param groupId    组ID
      * @param artifactId 项目ID
@@ -185,55 +633,368 @@ public class LuceneIndexService {
      * @param metaPath   meta.json路径
      */
     public void updateIndex(String groupId, String artifactId, String desc, String metaPath) {
-        indexLock.writeLock().lock();
+        queueUpdate(metaPath, createDoc(groupId, artifactId, desc, metaPath));
+    }
+
+    /**
+     * 按磁盘上的meta.json和README.md重新索引单个模板(记录文件指纹)
+     * 与updateIndex一样进入待提交队列合并提交
+     *
+     * @param metaFile meta.json文件
+     */
+    public void reindexTemplate(File metaFile) {
+        var doc = buildTemplateDoc(metaFile);
+        if (doc != null)
+            queueUpdate(metaFile.getAbsolutePath(), doc);
+    }
+
+    /**
+     * 从索引中删除单个模板,进入待提交队列合并提交
+     *
+     * @param metaPath meta.json路径
+     */
+    public void deleteTemplate(String metaPath) {
+        queueUpdate(metaPath, DELETED);
+    }
+
+    /**
+     * 立即从索引中删除整个groupId目录下的所有模板
+     *
+     * @param groupDir groupId目录
+     * @throws IOException 索引写入失败
+     */
+    public void deleteGroup(File groupDir) throws IOException {
+        indexLock.lock();
+        try {
+            writer.deleteDocuments(new PrefixQuery(new Term(F_PATH, groupDir.getAbsolutePath() + File.separator)));
+            writer.commit();
+            searcherManager.maybeRefresh();
+        } finally {
+            indexLock.unlock();
+        }
+    }
+
+    /**
+     * 将单模板更新放入待提交队列,达到批量阈值时立即异步提交
+     *
+     * @param metaPath meta.json路径
+     * @param doc      索引文档,DELETED表示删除
+     */
+    private void queueUpdate(String metaPath, Document doc) {
+        pendingUpserts.put(metaPath, doc);
+        if (pendingUpserts.size() >= repositoryConfig.getIndexCommitBatchSize() && committer != null) {
+            committer.execute(this::commitQuietly);
+        }
+    }
+
+    /**
+     * 立即提交所有待提交的模板更新并刷新搜索器
+     *
+     * @throws IOException 索引写入失败
+     */
+    public void commitPendingUpserts() throws IOException {
+        if (pendingUpserts.isEmpty())
+            return;
+        var sample = CodestyleMetrics.start();
+        indexLock.lock();
         try {
-            var config = new IndexWriterConfig(analyzer).setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
-            try (var writer = new IndexWriter(directory, config)) {
-                writer.deleteDocuments(new Term(F_PATH, metaPath));
-                writer.addDocument(createDoc(groupId, artifactId, desc, metaPath));
+            int applied = 0;
+            for (var metaPath : pendingUpserts.keySet()) {
+                var doc = pendingUpserts.remove(metaPath);
+                if (doc == DELETED) {
+                    writer.deleteDocuments(new Term(F_PATH, metaPath));
+                    applied++;
+                } else if (doc != null) {
+                    writer.updateDocument(new Term(F_PATH, metaPath), doc);
+                    applied++;
+                }
+            }
+            if (applied > 0) {
+                writer.commit();
+                searcherManager.maybeRefresh();
             }
-        } catch (IOException ignored) {
-            // 索引更新失败不影响主流程
         } finally {
-            indexLock.writeLock().unlock();
+            indexLock.unlock();
+            CodestyleMetrics.stopStage(sample, CodestyleMetrics.STAGE_INDEX_COMMIT);
+        }
+    }
+
+    /**
+     * 定时提交任务
+     */
+    private void commitQuietly() {
+        try {
+            commitPendingUpserts();
+        } catch (Exception ignored) {
+            // 索引更新失败不影响主流程
         }
     }
 
     /**
      * 本地检索模板
      * 根据关键词检索本地索引,返回Top1匹配结果
+     * 检索复用常驻搜索器,无需获取锁,不受待提交更新阻塞
+     * 结果按规范化关键词缓存,索引代数变化后缓存自动失效
      *
      * @param keyword 搜索关键词
      * @return 匹配的模板信息, 未找到返回null
      */
     public SearchResult fetchLocalMetaConfig(String keyword) {
-        indexLock.readLock().lock();
+        var sample = CodestyleMetrics.start();
         try {
-            if (!DirectoryReader.indexExists(directory)) {
-                // 需要释放读锁再获取写锁重建索引
-                indexLock.readLock().unlock();
-                rebuildIndex();
-                indexLock.readLock().lock();
-            }
-            try (var reader = DirectoryReader.open(directory)) {
-                var parser = new QueryParser(F_CONTENT, analyzer);
-                parser.setDefaultOperator(QueryParser.Operator.OR);
-                var queryStr = keyword.matches(".*[+\\-&|!(){}\\[\\]^\"~*?:\\\\/].*") ? QueryParser.escape(keyword)
-                        : keyword;
-                var topDocs = new IndexSearcher(reader).search(parser.parse(queryStr), 1);
+            var manager = searcherManager;
+            if (manager == null)
+                return null;
+            // 先读取代数再获取搜索器,保证缓存条目的代数不会新于其检索所用的索引
+            long generation = indexGeneration.get();
+            var cacheKey = normalizeKeyword(keyword);
+            var cached = searchCache.get(cacheKey, entry -> entry.generation() == generation);
+            if (cached != null)
+                return cached.result();
+            var searcher = manager.acquire();
+            try {
+                SearchResult result = null;
+                var topDocs = searcher.search(parseQuery(keyword), 1);
                 if (topDocs.totalHits.value > 0) {
-                    var doc = reader.storedFields().document(topDocs.scoreDocs[0].doc);
-                    return new SearchResult(doc.get(F_GID), doc.get(F_AID), doc.get(F_DESC), doc.get(F_PATH));
+                    var doc = searcher.storedFields().document(topDocs.scoreDocs[0].doc);
+                    result = new SearchResult(doc.get(F_GID), doc.get(F_AID), doc.get(F_DESC), doc.get(F_PATH));
                 }
+                searchCache.put(cacheKey, new CachedResult(generation, result));
+                return result;
+            } finally {
+                manager.release(searcher);
             }
         } catch (Exception ignored) {
             // 检索失败返回null
         } finally {
-            indexLock.readLock().unlock();
+            CodestyleMetrics.stopStage(sample, CodestyleMetrics.STAGE_LOCAL_SEARCH);
         }
         return null;
     }
 
+    /**
+     * 获取检索结果缓存统计
+     *
+     * @return 缓存统计(命中/未命中/淘汰次数)
+     */
+    public CacheStats getSearchCacheStats() {
+        return searchCache != null ? searchCache.stats() : new CacheStats(0, 0, 0, 0, 0);
+    }
+
+    /**
+     * 获取索引中的文档数(模板组数)
+     *
+     * @return 文档数
+     */
+    public int getIndexDocCount() {
+        IndexWriter w = writer;
+        return w != null && w.isOpen() ? w.getDocStats().numDocs : 0;
+    }
+
+    /**
+     * 获取索引文件总大小
+     *
+     * @return 字节数
+     */
+    public long getIndexSizeBytes() {
+        long size = 0;
+        try {
+            for (String file : directory.listAll()) {
+                try {
+                    size += directory.fileLength(file);
+                } catch (IOException ignored) {
+                    // 合并过程中文件可能已被删除
+                }
+            }
+        } catch (Exception ignored) {
+            // 索引目录已关闭
+        }
+        return size;
+    }
+
+    /**
+     * 注册检索缓存命中率、索引大小和最近一次索引构建吞吐量指标
+     */
+    private void registerMetrics() {
+        CodestyleMetrics.cache("search", this, LuceneIndexService::getSearchCacheStats);
+        CodestyleMetrics.gauge("codestyle.index.docs", this, LuceneIndexService::getIndexDocCount);
+        CodestyleMetrics.gauge("codestyle.index.size.bytes", this, LuceneIndexService::getIndexSizeBytes);
+        CodestyleMetrics.gauge("codestyle.index.generation", this, LuceneIndexService::getIndexGeneration);
+        CodestyleMetrics.gauge("codestyle.index.ready", this, s -> s.isReady() ? 1 : 0);
+        CodestyleMetrics.gauge("codestyle.index.build.docs.per.second", this,
+                s -> s.lastBuildStats != null ? s.lastBuildStats.docsPerSecond() : 0);
+        CodestyleMetrics.gauge("codestyle.index.build.duration.ms", this,
+                s -> s.lastBuildStats != null ? s.lastBuildStats.elapsedMillis() : 0);
+    }
+
+    /**
+     * 获取当前索引代数
+     *
+     * @return 索引代数
+     */
+    public long getIndexGeneration() {
+        return indexGeneration.get();
+    }
+
+    /**
+     * 规范化检索关键词:去除首尾空白、合并连续空白并转小写(与分词器的小写处理一致)
+     *
+     * @param keyword 搜索关键词
+     * @return 规范化后的关键词
+     */
+    private static String normalizeKeyword(String keyword) {
+        return StrUtil.nullToEmpty(keyword).trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 本地分页检索模板
+     * 在同一个搜索器上一次检索返回按得分排序的前K个模板组,通过游标翻页
+     * 游标记录生成时的索引版本,索引刷新后文档号可能变化,旧游标将被拒绝而不是返回错位的结果
+     *
+     * @param keyword  搜索关键词
+     * @param topK     每页数量
+     * @param cursor   分页游标,取自上一页的nextCursor,首页传null
+     * @param minScore 最低得分,低于该得分的结果被截断,匹配总数同样只计入不低于该得分的结果,不限制传null
+     * @return 检索结果页
+     * @throws IllegalArgumentException 关键词无法解析,或游标格式错误、已过期
+     * @throws IOException              索引读取失败
+     */
+    public SearchPage searchTopK(String keyword, int topK, String cursor, Float minScore) throws IOException {
+        var sample = CodestyleMetrics.start();
+        try {
+            var manager = searcherManager;
+            if (manager == null)
+                return SearchPage.EMPTY;
+            var page = parseCursor(cursor);
+            var query = parseQuery(keyword);
+            var searcher = manager.acquire();
+            try {
+                long version = ((DirectoryReader) searcher.getIndexReader()).getVersion();
+                if (page != null && page.version() != version)
+                    throw new IllegalArgumentException("索引已更新,分页游标已失效,请从首页重新检索");
+                var after = page != null ? page.after() : null;
+                int start = page != null ? page.start() : 1;
+                // 一次遍历同时收集本页结果(多取一条用于判断是否存在下一页)和精确的匹配总数
+                var results = searcher.search(query, new MultiCollectorManager(
+                        new TopScoreDocCollectorManager(topK + 1, after, Integer.MAX_VALUE),
+                        new HitCounterManager(minScore)));
+                var topDocs = (TopDocs) results[0];
+                int totalHits = (Integer) results[1];
+                var storedFields = searcher.storedFields();
+                var hits = new ArrayList<RankedResult>();
+                String nextCursor = null;
+                for (var scoreDoc : topDocs.scoreDocs) {
+                    if (minScore != null && scoreDoc.score < minScore)
+                        break;
+                    if (hits.size() == topK) {
+                        var last = hits.get(hits.size() - 1);
+                        nextCursor = version + ":" + last.docId() + ":" + last.score() + ":" + (start + topK);
+                        break;
+                    }
+                    var doc = storedFields.document(scoreDoc.doc);
+                    hits.add(new RankedResult(scoreDoc.doc, scoreDoc.score, doc.get(F_GID), doc.get(F_AID),
+                            doc.get(F_DESC), doc.get(F_PATH)));
+                }
+                return new SearchPage(hits, start, totalHits, nextCursor);
+            } finally {
+                manager.release(searcher);
+            }
+        } finally {
+            CodestyleMetrics.stopStage(sample, CodestyleMetrics.STAGE_LOCAL_SEARCH);
+        }
+    }
+
+    /**
+     * 统计精确匹配总数的收集器管理器,与前K个结果的收集在同一次遍历中完成
+     *
+     * @param minScore 最低得分,可为null
+     */
+    private record HitCounterManager(Float minScore) implements CollectorManager<HitCounter, Integer> {
+
+        @Override
+        public HitCounter newCollector() {
+            return new HitCounter(minScore);
+        }
+
+        @Override
+        public Integer reduce(Collection<HitCounter> collectors) {
+            return collectors.stream().mapToInt(c -> c.count).sum();
+        }
+    }
+
+    /**
+     * 匹配计数收集器,指定最低得分时只计入不低于该得分的结果
+     */
+    private static final class HitCounter extends SimpleCollector {
+
+        private final Float minScore;
+        private Scorable scorer;
+        private int count;
+
+        HitCounter(Float minScore) {
+            this.minScore = minScore;
+        }
+
+        @Override
+        public void setScorer(Scorable scorer) {
+            this.scorer = scorer;
+        }
+
+        @Override
+        public void collect(int doc) throws IOException {
+            if (minScore == null || scorer.score() >= minScore)
+                count++;
+        }
+
+        @Override
+        public ScoreMode scoreMode() {
+            return minScore == null ? ScoreMode.COMPLETE_NO_SCORES : ScoreMode.COMPLETE;
+        }
+    }
+
+    /**
+     * 解析检索关键词,包含查询语法特殊字符时整体转义
+     *
+     * @param keyword 搜索关键词
+     * @return Lucene查询
+     * @throws IllegalArgumentException 关键词为空或无法解析
+     */
+    private Query parseQuery(String keyword) {
+        var parser = new QueryParser(F_CONTENT, analyzer);
+        parser.setDefaultOperator(QueryParser.Operator.OR);
+        var text = StrUtil.nullToEmpty(keyword);
+        var queryStr = text.matches(".*[+\\-&|!(){}\\[\\]^\"~*?:\\\\/].*") ? QueryParser.escape(text) : text;
+        try {
+            return parser.parse(queryStr);
+        } catch (ParseException e) {
+            throw new IllegalArgumentException("无法解析模板提示词: " + keyword, e);
+        }
+    }
+
+    /**
+     * 解析分页游标(格式: 索引版本:docId:score:下一页首条序号)
+     *
+     * @param cursor 分页游标
+     * @return 游标位置,首页返回null
+     * @throws IllegalArgumentException 游标格式错误
+     */
+    private static PageCursor parseCursor(String cursor) {
+        if (StrUtil.isBlank(cursor))
+            return null;
+        var parts = cursor.trim().split(":");
+        try {
+            if (parts.length == 4) {
+                int start = Integer.parseInt(parts[3]);
+                if (start > 1)
+                    return new PageCursor(Long.parseLong(parts[0]),
+                            new ScoreDoc(Integer.parseInt(parts[1]), Float.parseFloat(parts[2])), start);
+            }
+        } catch (NumberFormatException ignored) {
+            // 按格式错误处理
+        }
+        throw new IllegalArgumentException("分页游标格式错误: " + cursor + ",请使用上一页结果中的下一页游标");
+    }
+
     /**
      * 检索结果记录
      *
@@ -245,19 +1006,74 @@ public class LuceneIndexService {
     public record SearchResult(String groupId, String artifactId, String description, String metaPath) {
     }
 
-    public LuceneIndexService(RepositoryConfig repositoryConfig) {
-        this.repositoryConfig = repositoryConfig;
-        this.localRepoDir     = null;
+    /**
+     * 检索缓存条目
+     *
+     * @param generation 写入时的索引代数
+     * @param result     检索结果,未命中时为null
+     */
+    private record CachedResult(long generation, SearchResult result) {
     }
 
-    public LuceneIndexService(String localRepoDir) {
-        this.repositoryConfig = null;
-        this.localRepoDir     = localRepoDir;
+    /**
+     * 分页游标
+     *
+     * @param version 生成游标时搜索器的索引版本
+     * @param after   上一页最后一条结果
+     * @param start   本页首条结果的序号
+     */
+    private record PageCursor(long version, ScoreDoc after, int start) {
     }
-    private String getRepoDir() {
-        return repositoryConfig != null
-                ? repositoryConfig.getRepositoryDir()
-                : localRepoDir;
+
+    /**
+     * 带得分的检索结果记录
+     *
+     * @param docId       Lucene文档号(用于生成分页游标)
+     * @param score       相关度得分
+     * @param groupId     组ID
+     * @param artifactId  项目ID
+     * @param description 模板描述
+     * @param metaPath    meta.json路径
+     */
+    public record RankedResult(int docId, float score, String groupId, String artifactId, String description,
+                               String metaPath) {
+    }
+
+    /**
+     * 分页检索结果记录
+     *
+     * @param hits       本页结果(按得分降序)
+     * @param start      本页首条结果的序号(从1开始)
+     * @param totalHits  匹配总数
+     * @param nextCursor 下一页游标,没有下一页时为null
+     */
+    public record SearchPage(List<RankedResult> hits, int start, long totalHits, String nextCursor) {
+
+        static final SearchPage EMPTY = new SearchPage(List.of(), 1, 0, null);
+    }
+
+    /**
+     * 索引构建统计记录
+     *
+     * @param incremental   是否为增量校准
+     * @param scanned       扫描到的模板数
+     * @param indexed       写入的文档数
+     * @param deleted       删除的文档数
+     * @param elapsedMillis 耗时(毫秒)
+     */
+    public record IndexBuildStats(boolean incremental, int scanned, int indexed, int deleted, long elapsedMillis) {
+
+        /**
+         * 扫描吞吐量(模板数/秒)
+         */
+        public double docsPerSecond() {
+            return elapsedMillis == 0 ? scanned * 1000.0 : scanned * 1000.0 / elapsedMillis;
+        }
+    }
+
+    /* 插件构造 */
+    public LuceneIndexService(String localRepoDir) {
+        this(new RepositoryConfigStub(false, localRepoDir, null));
     }
 
-}
+}
\ No newline at end of file
@@ -1,18 +1,19 @@
 package top.codestyle.mcp.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.DefaultResourceLoader;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.stereotype.Service;
+import top.codestyle.mcp.metrics.CodestyleMetrics;
+import top.codestyle.mcp.util.PromptTemplate;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
-import java.util.Objects;
-import java.util.regex.Matcher;
 
 /**
  * 提示词模板加载服务
- * 使用懒加载模式从classpath读取提示词模板
+ * 使用懒加载模式从classpath读取提示词模板,加载时预编译为字面量片段和占位符,渲染时单次拼接
  *
  * @author 小航love666, Kanttha, movclantian
  * @since 2025-09-29
@@ -22,17 +23,19 @@ public class PromptService {
 
     private static final String CONTENT_RESULT_TEMPLATE_PATH = "classpath:content-result.txt";
     private static final String SEARCH_RESULT_TEMPLATE_PATH = "classpath:search-result.txt";
+    private static final String RANKED_RESULT_TEMPLATE_PATH = "classpath:ranked-result.txt";
 
     @Autowired
     private ResourceLoader resourceLoader;
 
-    private volatile String contentResultTemplate;
-    private volatile String searchResultTemplate;
+    private volatile PromptTemplate contentResultTemplate;
+    private volatile PromptTemplate searchResultTemplate;
+    private volatile PromptTemplate rankedResultTemplate;
 
     /**
      * 线程安全懒加载模板内容模板
      */
-    private String getContentResultTemplate() {
+    private PromptTemplate getContentResultTemplate() {
         if (contentResultTemplate == null) {
             synchronized (this) {
                 if (contentResultTemplate == null) {
@@ -46,7 +49,7 @@ public class PromptService {
     /**
      * 线程安全懒加载搜索结果模板
      */
-    private String getSearchResultTemplate() {
+    private PromptTemplate getSearchResultTemplate() {
         if (searchResultTemplate == null) {
             synchronized (this) {
                 if (searchResultTemplate == null) {
@@ -58,20 +61,36 @@ public class PromptService {
     }
 
     /**
-     * 从classpath加载模板文件
+     * 线程安全懒加载分页检索结果模板
+     */
+    private PromptTemplate getRankedResultTemplate() {
+        if (rankedResultTemplate == null) {
+            synchronized (this) {
+                if (rankedResultTemplate == null) {
+                    rankedResultTemplate = loadTemplate(RANKED_RESULT_TEMPLATE_PATH);
+                }
+            }
+        }
+        return rankedResultTemplate;
+    }
+
+    /**
+     * 从classpath加载并编译模板文件
+     * 非Spring环境(如Maven插件)下未注入ResourceLoader时使用默认的类路径加载器
      *
      * @param templatePath 模板文件路径
-     * @return 模板内容字符串
+     * @return 预编译模板
      * @throws IllegalStateException 文件不存在或加载失败
      */
-    private String loadTemplate(String templatePath) {
+    private PromptTemplate loadTemplate(String templatePath) {
         try {
-            Resource resource = resourceLoader.getResource(templatePath);
+            ResourceLoader loader = resourceLoader != null ? resourceLoader : new DefaultResourceLoader();
+            Resource resource = loader.getResource(templatePath);
             if (!resource.exists()) {
                 throw new IllegalStateException("classpath 下找不到 " + templatePath);
             }
             String content = new String(resource.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
-            return content.strip();
+            return PromptTemplate.compile(content.strip());
         } catch (IOException e) {
             throw new IllegalStateException("加载 " + templatePath + " 失败", e);
         }
@@ -85,7 +104,12 @@ public class PromptService {
      * @throws IllegalArgumentException 参数数量与占位符数量不匹配
      */
     public String buildPrompt(String... params) {
-        return buildFromTemplate(getContentResultTemplate(), params);
+        var sample = CodestyleMetrics.start();
+        try {
+            return getContentResultTemplate().render(params);
+        } finally {
+            CodestyleMetrics.stopStage(sample, CodestyleMetrics.STAGE_PROMPT_RENDER);
+        }
     }
 
     /**
@@ -96,45 +120,56 @@ public class PromptService {
      * @throws IllegalArgumentException 参数数量与占位符数量不匹配
      */
     public String buildSearchResult(String... params) {
-        return buildFromTemplate(getSearchResultTemplate(), params);
+        var sample = CodestyleMetrics.start();
+        try {
+            return getSearchResultTemplate().render(params);
+        } finally {
+            CodestyleMetrics.stopStage(sample, CodestyleMetrics.STAGE_PROMPT_RENDER);
+        }
     }
 
     /**
-     * 从模板构建内容
+     * 构建搜索结果中关键词之后的部分(模板第一个%{s}为关键词)
+     * 该部分只与模板组版本相关,可缓存后通过{@link #completeSearchResult}拼接关键词
      *
-     * @param template 模板内容
-     * @param params   可变参数,依次对应模板中的%{s}
-     * @return 替换后的字符串
+     * @param params 可变参数,依次对应模板中关键词之后的%{s}
+     * @return 替换后的搜索结果主体
      * @throws IllegalArgumentException 参数数量与占位符数量不匹配
      */
-    private String buildFromTemplate(String template, String... params) {
-        Objects.requireNonNull(params, "params must not be null");
-
-        int placeholderCount = countPlaceholder(template);
-        if (placeholderCount != params.length) {
-            throw new IllegalArgumentException(
-                    "模板需要 " + placeholderCount + " 个参数，实际传入 " + params.length);
+    public String buildSearchResultBody(String... params) {
+        var sample = CodestyleMetrics.start();
+        try {
+            return getSearchResultTemplate().render(1, params);
+        } finally {
+            CodestyleMetrics.stopStage(sample, CodestyleMetrics.STAGE_PROMPT_RENDER);
         }
+    }
 
-        String result = template;
-        for (String p : params) {
-            // 使用 Matcher.quoteReplacement 来转义特殊字符，避免 $ 和 \ 被当作正则表达式的反向引用
-            String replacement = Matcher.quoteReplacement(p == null ? "" : p);
-            result = result.replaceFirst("%\\{s}", replacement);
-        }
-        return result;
+    /**
+     * 拼接关键词和搜索结果主体,结果与{@link #buildSearchResult}一致
+     *
+     * @param keyword 模板提示词
+     * @param body    {@link #buildSearchResultBody}构建的搜索结果主体
+     * @return 完整的搜索结果字符串
+     */
+    public String completeSearchResult(String keyword, String body) {
+        return getSearchResultTemplate().segment(0) + (keyword == null ? "" : keyword) + body;
     }
 
     /**
-     * 统计模板中%{s}占位符的数量
+     * 构建分页检索结果(按顺序替换模板中的%{s}占位符)
+     *
+     * @param params 可变参数,依次对应模板中的%{s}
+     * @return 替换后的分页检索结果字符串
+     * @throws IllegalArgumentException 参数数量与占位符数量不匹配
      */
-    private static int countPlaceholder(String template) {
-        int count = 0, idx = 0;
-        while ((idx = template.indexOf("%{s}", idx)) != -1) {
-            count++;
-            idx += 4;
+    public String buildRankedResult(String... params) {
+        var sample = CodestyleMetrics.start();
+        try {
+            return getRankedResultTemplate().render(params);
+        } finally {
+            CodestyleMetrics.stopStage(sample, CodestyleMetrics.STAGE_PROMPT_RENDER);
         }
-        return count;
     }
 
 }
@@ -0,0 +1,327 @@
+package top.codestyle.mcp.service;
+
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.json.JSONArray;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import top.codestyle.mcp.cache.CacheStats;
+import top.codestyle.mcp.cache.LocalCache;
+import top.codestyle.mcp.config.RepositoryConfig;
+import top.codestyle.mcp.metrics.CodestyleMetrics;
+import top.codestyle.mcp.model.sdk.RemoteMetaConfig;
+import top.codestyle.mcp.util.SDKUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 远程检索缓存服务
+ * 缓存关键词到远程元配置的映射,TTL内直接返回;过期后携带ETag发送条件请求,远程返回304时续期,
+ * 远程不可访问时继续使用过期结果。缓存按LRU限制条数,并持久化到仓库目录下的.cache/remote-search.json,
+ * 重启后无需重新访问远程即可命中。持久化在后台线程延迟合并写入,不占用检索线程和OkHttp分发线程
+ *
+ * @author movclantian
+ * @since 2026-10-18
+ */
+@Service
+@RequiredArgsConstructor
+public class RemoteSearchCacheService {
+
+    /**
+     * 持久化文件相对仓库目录的路径,以点开头的目录不会被目录监听和索引重建处理
+     */
+    public static final String PERSIST_FILE = ".cache/remote-search.json";
+
+    private final RepositoryConfig repositoryConfig;
+
+    private volatile LocalCache<String, CachedSearch> searchCache;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    /**
+     * 是否已安排延迟持久化,期间的缓存变化合并为一次写入
+     */
+    private final AtomicBoolean persistPending = new AtomicBoolean();
+    private volatile ScheduledThreadPoolExecutor persister;
+
+    /**
+     * 获取关键词对应的远程元配置
+     *
+     * @param templateKeyword 模板关键词
+     * @return 远程模板配置,关键词为空或远程不可访问且无缓存时返回null
+     */
+    public RemoteMetaConfig fetch(String templateKeyword) {
+        if (StrUtil.isBlank(templateKeyword)) {
+            return null;
+        }
+        if (!repositoryConfig.isRemoteCacheEnabled()) {
+            SDKUtils.RemoteFetchResult result = fetchRemote(templateKeyword, null);
+            return result != null ? result.config() : null;
+        }
+
+        String key = StrUtil.trim(templateKeyword);
+        LocalCache<String, CachedSearch> cache = cache();
+        CachedSearch cached = cache.get(key);
+        long now = System.currentTimeMillis();
+        if (cached != null && now - cached.fetchedAt() < ttlMillis()) {
+            hits.increment();
+            return cached.config();
+        }
+
+        return resolve(key, cached, fetchRemote(key, cached != null ? cached.etag() : null));
+    }
+
+    /**
+     * 异步获取关键词对应的远程元配置,有效期内的缓存直接返回,否则等待远程响应期间不占用调用方线程
+     *
+     * @param templateKeyword 模板关键词
+     * @return 远程模板配置,关键词为空或远程不可访问且无缓存时以null完成
+     */
+    public CompletableFuture<RemoteMetaConfig> fetchAsync(String templateKeyword) {
+        if (StrUtil.isBlank(templateKeyword)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        if (!repositoryConfig.isRemoteCacheEnabled()) {
+            return fetchRemoteAsync(templateKeyword, null).thenApply(result -> result != null ? result.config() : null);
+        }
+
+        String key = StrUtil.trim(templateKeyword);
+        CachedSearch cached = cache().get(key);
+        if (cached != null && System.currentTimeMillis() - cached.fetchedAt() < ttlMillis()) {
+            hits.increment();
+            return CompletableFuture.completedFuture(cached.config());
+        }
+        return fetchRemoteAsync(key, cached != null ? cached.etag() : null)
+                .thenApply(result -> resolve(key, cached, result));
+    }
+
+    /**
+     * 根据远程响应更新缓存并返回应使用的配置
+     *
+     * @param key    规范化后的关键词
+     * @param cached 已缓存的结果,可为null
+     * @param result 远程获取结果,远程不可访问时为null
+     * @return 远程模板配置
+     */
+    private RemoteMetaConfig resolve(String key, CachedSearch cached, SDKUtils.RemoteFetchResult result) {
+        long now = System.currentTimeMillis();
+        if (result == null) {
+            // 远程不可访问时继续使用过期结果
+            if (cached != null) {
+                hits.increment();
+                CodestyleMetrics.increment("codestyle.remote.revalidations", "result", "error");
+                return cached.config();
+            }
+            misses.increment();
+            return null;
+        }
+        if (result.notModified() && cached != null) {
+            hits.increment();
+            CodestyleMetrics.increment("codestyle.remote.revalidations", "result", "not_modified");
+            put(key, new CachedSearch(cached.config(), cached.etag(), now));
+            return cached.config();
+        }
+
+        misses.increment();
+        if (cached != null) {
+            CodestyleMetrics.increment("codestyle.remote.revalidations", "result", "modified");
+        }
+        RemoteMetaConfig config = result.config();
+        if (config != null && StrUtil.isNotBlank(config.getGroupId())) {
+            put(key, new CachedSearch(config, result.etag(), now));
+        }
+        return config;
+    }
+
+    /**
+     * 停止延迟持久化并写入尚未落盘的缓存变化
+     */
+    @PreDestroy
+    public void shutdown() {
+        ScheduledThreadPoolExecutor executor = persister;
+        if (executor != null) {
+            // 取消尚未到期的写入,不中断正在进行的写入,避免留下半截临时文件
+            executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+            executor.shutdown();
+        }
+        if (persistPending.getAndSet(false)) {
+            persist();
+        }
+    }
+
+    /**
+     * 获取远程检索缓存统计,过期后经304确认未变化或远程不可访问时使用过期结果均计为命中
+     *
+     * @return 缓存统计
+     */
+    public CacheStats getRemoteSearchCacheStats() {
+        LocalCache<String, CachedSearch> cache = searchCache;
+        CacheStats stats = cache != null ? cache.stats() : new CacheStats(0, 0, 0, 0, 0);
+        return new CacheStats(hits.sum(), misses.sum(), stats.evictions(), stats.size(), stats.weightedSize());
+    }
+
+    private SDKUtils.RemoteFetchResult fetchRemote(String templateKeyword, String etag) {
+        var sample = CodestyleMetrics.start();
+        try {
+            return SDKUtils.fetchRemoteMetaConfig(repositoryConfig.getRemotePath(), templateKeyword, etag);
+        } finally {
+            CodestyleMetrics.stopStage(sample, CodestyleMetrics.STAGE_REMOTE_FETCH);
+        }
+    }
+
+    private CompletableFuture<SDKUtils.RemoteFetchResult> fetchRemoteAsync(String templateKeyword, String etag) {
+        var sample = CodestyleMetrics.start();
+        return SDKUtils.fetchRemoteMetaConfigAsync(repositoryConfig.getRemotePath(), templateKeyword, etag)
+                .whenComplete((result, e) -> CodestyleMetrics.stopStage(sample, CodestyleMetrics.STAGE_REMOTE_FETCH));
+    }
+
+    private void put(String key, CachedSearch value) {
+        cache().put(key, value);
+        if (repositoryConfig.isRemoteCachePersistEnabled()) {
+            schedulePersist();
+        }
+    }
+
+    /**
+     * 安排一次延迟持久化,已有待执行的持久化时直接合并
+     */
+    private void schedulePersist() {
+        long delay = repositoryConfig.getRemoteCachePersistDelayMs();
+        if (delay <= 0) {
+            persist();
+            return;
+        }
+        if (persistPending.compareAndSet(false, true)) {
+            persister().schedule(() -> {
+                if (persistPending.getAndSet(false)) {
+                    persist();
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private ScheduledThreadPoolExecutor persister() {
+        ScheduledThreadPoolExecutor executor = persister;
+        if (executor == null) {
+            synchronized (this) {
+                executor = persister;
+                if (executor == null) {
+                    executor = persister = new ScheduledThreadPoolExecutor(1, r -> {
+                        var thread = new Thread(r, "remote-search-persister");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                }
+            }
+        }
+        return executor;
+    }
+
+    private long ttlMillis() {
+        return TimeUnit.SECONDS.toMillis(repositoryConfig.getRemoteCacheTtlSeconds());
+    }
+
+    private LocalCache<String, CachedSearch> cache() {
+        LocalCache<String, CachedSearch> cache = searchCache;
+        if (cache == null) {
+            synchronized (this) {
+                cache = searchCache;
+                if (cache == null) {
+                    // 过期条目仍需保留ETag用于条件请求,由本服务按fetchedAt判断是否过期
+                    cache = new LocalCache<>(repositoryConfig.getRemoteCacheMaxEntries(), 0);
+                    if (repositoryConfig.isRemoteCachePersistEnabled()) {
+                        load(cache);
+                    }
+                    searchCache = cache;
+                    CodestyleMetrics.cache("remote-search", this, RemoteSearchCacheService::getRemoteSearchCacheStats);
+                }
+            }
+        }
+        return cache;
+    }
+
+    private Path persistPath() {
+        return Paths.get(repositoryConfig.getRepositoryDir(), PERSIST_FILE);
+    }
+
+    /**
+     * 从持久化文件恢复缓存,远程仓库地址变化时丢弃
+     *
+     * @param cache 待填充的缓存
+     */
+    private void load(LocalCache<String, CachedSearch> cache) {
+        Path path = persistPath();
+        if (!Files.isRegularFile(path)) {
+            return;
+        }
+        try {
+            JSONObject root = JSONUtil.parseObj(Files.readString(path, StandardCharsets.UTF_8));
+            if (!StrUtil.equals(root.getStr("remote"), repositoryConfig.getRemotePath())) {
+                return;
+            }
+            // 文件按最久未使用到最近使用排列,依次写入以恢复LRU顺序
+            for (Object item : root.getJSONArray("entries")) {
+                JSONObject entry = (JSONObject) item;
+                RemoteMetaConfig config = entry.getJSONObject("config").toBean(RemoteMetaConfig.class);
+                cache.put(entry.getStr("keyword"),
+                        new CachedSearch(config, entry.getStr("etag"), entry.getLong("fetchedAt", 0L)));
+            }
+        } catch (Exception ignored) {
+            // 持久化文件损坏时从空缓存开始
+        }
+    }
+
+    /**
+     * 将缓存写入持久化文件,先写临时文件再替换,避免中途退出留下不完整的文件
+     */
+    private synchronized void persist() {
+        JSONArray entries = new JSONArray();
+        for (Map.Entry<String, CachedSearch> e : cache().snapshot().entrySet()) {
+            entries.add(new JSONObject()
+                    .set("keyword", e.getKey())
+                    .set("etag", e.getValue().etag())
+                    .set("fetchedAt", e.getValue().fetchedAt())
+                    .set("config", JSONUtil.parseObj(e.getValue().config())));
+        }
+        JSONObject root = new JSONObject()
+                .set("remote", repositoryConfig.getRemotePath())
+                .set("entries", entries);
+
+        Path path = persistPath();
+        try {
+            Files.createDirectories(path.getParent());
+            Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+            Files.writeString(tmp, root.toString(), StandardCharsets.UTF_8);
+            try {
+                Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException ignored) {
+            // 持久化失败不影响检索
+        }
+    }
+
+    /**
+     * 缓存的远程检索结果
+     *
+     * @param config    远程模板配置
+     * @param etag      远程响应的ETag,可为空
+     * @param fetchedAt 最近一次从远程获取或确认未变化的时间戳(毫秒)
+     */
+    private record CachedSearch(RemoteMetaConfig config, String etag, long fetchedAt) {
+    }
+}
@@ -0,0 +1,380 @@
+package top.codestyle.mcp.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import top.codestyle.mcp.config.RepositoryConfig;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 仓库目录监听服务
+ * 监听repository.dir下groupId/artifactId目录树的变化,去抖合并后对变化的模板组做定向索引更新和目录缓存失效,
+ * 无需重启或全量重建。文件系统不支持原生监听(或监听数超限)时降级为定时轮询
+ *
+ * @author movclantian
+ * @since 2026-10-18
+ */
+@Service
+@RequiredArgsConstructor
+public class RepositoryWatchService {
+
+    private static final String MODE_NATIVE = "native";
+    private static final String MODE_POLL = "poll";
+
+    private final RepositoryConfig repositoryConfig;
+    private final LuceneIndexService luceneIndexService;
+    private final TemplateCatalogService templateCatalogService;
+
+    /**
+     * 待处理的变更(相对路径 groupId 或 groupId/artifactId -> 最近一次事件时间)
+     */
+    private final Map<String, Long> pendingChanges = new ConcurrentHashMap<>();
+
+    private Path root;
+    private volatile WatchService watchService;
+    private Thread watchThread;
+    private ScheduledExecutorService scheduler;
+    /**
+     * 轮询模式下的上一次快照(groupId/artifactId -> 指纹)
+     */
+    private Map<String, String> snapshot;
+    private volatile boolean running;
+
+    /**
+     * 启动目录监听
+     * 递归注册监听或拍摄快照需遍历整个仓库,在监听线程中执行,不阻塞服务启动
+     */
+    @PostConstruct
+    public void start() {
+        if (!repositoryConfig.isWatchEnabled())
+            return;
+        root = Paths.get(repositoryConfig.getRepositoryDir()).toAbsolutePath().normalize();
+        if (!Files.isDirectory(root))
+            return;
+        running = true;
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            var thread = new Thread(r, "repository-watcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long debounce = Math.max(50, repositoryConfig.getWatchDebounceMs());
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, debounce, debounce / 2, TimeUnit.MILLISECONDS);
+        scheduler.execute(this::startWatching);
+    }
+
+    /**
+     * 选择监听方式,auto模式优先使用原生WatchService,失败时降级为轮询
+     */
+    private void startWatching() {
+        if (!running)
+            return;
+        var mode = repositoryConfig.getWatchMode();
+        if (!MODE_POLL.equals(mode) && startNativeWatch())
+            return;
+        if (MODE_NATIVE.equals(mode))
+            return;
+        startPolling();
+    }
+
+    /**
+     * 停止目录监听
+     */
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (watchThread != null)
+            watchThread.interrupt();
+        closeWatchService();
+        if (scheduler != null)
+            scheduler.shutdownNow();
+    }
+
+    /**
+     * 启动原生WatchService监听
+     *
+     * @return 是否启动成功
+     */
+    private boolean startNativeWatch() {
+        try {
+            watchService = root.getFileSystem().newWatchService();
+            registerTree(root);
+        } catch (IOException | UnsupportedOperationException | ClosedWatchServiceException e) {
+            // 注册期间服务已停止时同样放弃原生监听
+            closeWatchService();
+            return false;
+        }
+        watchThread = new Thread(this::watchLoop, "repository-watcher-events");
+        watchThread.setDaemon(true);
+        watchThread.start();
+        return true;
+    }
+
+    /**
+     * 递归注册目录监听,跳过索引目录和隐藏目录
+     *
+     * @param dir 起始目录
+     * @throws IOException 注册失败(如监听数超过系统上限)
+     */
+    private void registerTree(Path dir) throws IOException {
+        Files.walkFileTree(dir, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path path, BasicFileAttributes attrs) throws IOException {
+                if (!path.equals(root) && isIgnored(path))
+                    return FileVisitResult.SKIP_SUBTREE;
+                path.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * 原生监听事件循环,只记录变化的模板组,实际处理由去抖任务完成
+     */
+    private void watchLoop() {
+        while (running) {
+            var ws = watchService;
+            if (ws == null)
+                return;
+            WatchKey key;
+            try {
+                key = ws.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            try {
+                handleEvents(key);
+            } catch (RuntimeException ignored) {
+                // 单次事件处理失败(如调度器已关闭)不影响后续监听
+            } finally {
+                // 无论处理是否成功都重新排队,否则该目录之后的事件不再上报
+                key.reset();
+            }
+        }
+    }
+
+    /**
+     * 处理一批监听事件:记录变化的模板组,为新建目录注册监听
+     *
+     * @param key 监听键
+     */
+    private void handleEvents(WatchKey key) {
+        var dir = (Path) key.watchable();
+        for (var event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                // 事件丢失时按指纹校准一次索引,并清空目录缓存
+                scheduler.execute(this::recoverFromOverflow);
+                continue;
+            }
+            var child = dir.resolve((Path) event.context());
+            markChanged(child);
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE
+                    && Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS) && !isIgnored(child)) {
+                try {
+                    registerTree(child);
+                } catch (IOException e) {
+                    // 新目录无法监听(如监听数超过系统上限),其子树的后续变化需要其他方式发现
+                    scheduler.execute(this::fallBackToPolling);
+                }
+            }
+        }
+    }
+
+    /**
+     * 原生监听无法覆盖新目录时的降级处理
+     * auto模式关闭原生监听改为轮询;仅允许原生监听时保留现有监听并按指纹校准一次索引
+     */
+    private void fallBackToPolling() {
+        if (!running || watchService == null)
+            return;
+        if (MODE_NATIVE.equals(repositoryConfig.getWatchMode())) {
+            recoverFromOverflow();
+            return;
+        }
+        closeWatchService();
+        startPolling();
+    }
+
+    /**
+     * 拍摄仓库快照并启动定时轮询
+     */
+    private void startPolling() {
+        snapshot = takeSnapshot();
+        long interval = Math.max(100, repositoryConfig.getWatchPollIntervalMs());
+        scheduler.scheduleWithFixedDelay(this::pollQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 轮询模式:比对groupId/artifactId目录的快照,记录变化的模板组
+     */
+    private void pollQuietly() {
+        try {
+            var current = takeSnapshot();
+            for (var entry : current.entrySet()) {
+                if (!entry.getValue().equals(snapshot.get(entry.getKey())))
+                    pendingChanges.put(entry.getKey(), System.nanoTime());
+            }
+            for (var key : snapshot.keySet()) {
+                if (!current.containsKey(key))
+                    pendingChanges.put(key, System.nanoTime());
+            }
+            snapshot = current;
+        } catch (Exception ignored) {
+            // 轮询失败等待下一次
+        }
+    }
+
+    /**
+     * 生成仓库快照
+     * 指纹由meta.json的修改时间、大小及artifactId目录的修改时间组成,只做stat不读取内容
+     *
+     * @return groupId/artifactId -> 指纹
+     */
+    private Map<String, String> takeSnapshot() {
+        var result = new HashMap<String, String>();
+        var groupDirs = root.toFile().listFiles(File::isDirectory);
+        if (groupDirs == null)
+            return result;
+        for (var groupDir : groupDirs) {
+            if (isIgnored(groupDir.toPath()))
+                continue;
+            var artifactDirs = groupDir.listFiles(File::isDirectory);
+            if (artifactDirs == null)
+                continue;
+            for (var artifactDir : artifactDirs) {
+                var metaFile = new File(artifactDir, "meta.json");
+                result.put(groupDir.getName() + "/" + artifactDir.getName(),
+                        metaFile.lastModified() + ":" + metaFile.length() + "|" + artifactDir.lastModified());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 记录变化路径所属的模板组
+     *
+     * @param path 变化的文件或目录
+     */
+    private void markChanged(Path path) {
+        var relative = root.relativize(path);
+        if (relative.getNameCount() == 0 || isIgnored(path))
+            return;
+        var key = relative.getNameCount() == 1
+                ? relative.getName(0).toString()
+                : relative.getName(0) + "/" + relative.getName(1);
+        pendingChanges.put(key, System.nanoTime());
+    }
+
+    /**
+     * 去抖处理:最近一次事件距今超过去抖时间的模板组才会被处理
+     */
+    private void flushQuietly() {
+        long threshold = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(repositoryConfig.getWatchDebounceMs());
+        for (var entry : pendingChanges.entrySet()) {
+            if (entry.getValue() > threshold || !pendingChanges.remove(entry.getKey(), entry.getValue()))
+                continue;
+            try {
+                var parts = entry.getKey().split("/");
+                if (parts.length == 1)
+                    applyGroupChange(parts[0]);
+                else
+                    applyTemplateChange(parts[0], parts[1]);
+            } catch (Exception ignored) {
+                // 单个模板组处理失败不影响其他模板组
+            }
+        }
+    }
+
+    /**
+     * 处理groupId目录级别的变化:目录存在时逐个处理其下模板组,目录被删除时删除其全部索引
+     *
+     * @param groupId 组ID
+     * @throws IOException 索引写入失败
+     */
+    private void applyGroupChange(String groupId) throws IOException {
+        var groupDir = new File(repositoryConfig.getRepositoryDir(), groupId);
+        if (!groupDir.isDirectory()) {
+            luceneIndexService.deleteGroup(groupDir);
+            templateCatalogService.invalidateGroup(groupId);
+            return;
+        }
+        var artifactDirs = groupDir.listFiles(File::isDirectory);
+        if (artifactDirs == null)
+            return;
+        for (var artifactDir : artifactDirs)
+            applyTemplateChange(groupId, artifactDir.getName());
+    }
+
+    /**
+     * 处理单个模板组的变化:meta.json存在则重新索引,否则删除索引,并使目录缓存失效
+     *
+     * @param groupId    组ID
+     * @param artifactId 项目ID
+     */
+    private void applyTemplateChange(String groupId, String artifactId) {
+        var metaFile = new File(repositoryConfig.getRepositoryDir(),
+                groupId + File.separator + artifactId + File.separator + "meta.json");
+        if (metaFile.isFile())
+            luceneIndexService.reindexTemplate(metaFile);
+        else
+            luceneIndexService.deleteTemplate(metaFile.getAbsolutePath());
+        templateCatalogService.invalidate(groupId, artifactId);
+    }
+
+    /**
+     * 监听事件溢出后的恢复:按文件指纹增量校准索引并清空目录缓存
+     */
+    private void recoverFromOverflow() {
+        try {
+            luceneIndexService.reconcileIndex();
+        } catch (Exception ignored) {
+            // 校准失败等待下一次变更
+        }
+        templateCatalogService.invalidateAll();
+    }
+
+    /**
+     * 是否为需要忽略的路径(索引目录、隐藏目录及其子路径)
+     *
+     * @param path 路径
+     * @return 是否忽略
+     */
+    private boolean isIgnored(Path path) {
+        var relative = root.relativize(path);
+        if (relative.getNameCount() == 0)
+            return false;
+        var first = relative.getName(0).toString();
+        return LuceneIndexService.INDEX_DIR.equals(first) || first.startsWith(".");
+    }
+
+    private void closeWatchService() {
+        var ws = watchService;
+        if (ws == null)
+            return;
+        watchService = null;
+        try {
+            ws.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
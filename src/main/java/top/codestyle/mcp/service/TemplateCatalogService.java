@@ -0,0 +1,195 @@
+package top.codestyle.mcp.service;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.json.JSONUtil;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import top.codestyle.mcp.config.RepositoryConfig;
+import top.codestyle.mcp.model.meta.LocalMetaConfig;
+import top.codestyle.mcp.model.sdk.MetaInfo;
+import top.codestyle.mcp.util.MetaInfoConvertUtil;
+import top.codestyle.mcp.util.SDKUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * 模板目录服务
+ * 在内存中缓存各模板组最新版本的模板元信息,
+ * 以及基于最新版本渲染出的目录树等结果,每次访问仅通过meta.json的修改时间和大小校验有效性,下载更新后主动失效
+ *
+ * @author movclantian
+ * @since 2026-10-18
+ */
+@Service
+@RequiredArgsConstructor
+public class TemplateCatalogService {
+
+    private final RepositoryConfig repositoryConfig;
+
+    /**
+     * 模板组目录缓存(groupId/artifactId -> 目录条目)
+     */
+    private final Map<String, CatalogEntry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * 获取模板组最新版本中本地文件存在的模板元信息
+     *
+     * @param groupId    组ID
+     * @param artifactId 项目ID
+     * @return 模板元信息列表(只读),模板组不存在返回空列表
+     */
+    public List<MetaInfo> getLatestMetaInfos(String groupId, String artifactId) {
+        CatalogEntry entry = getEntry(groupId, artifactId);
+        return entry != null ? entry.latest() : Collections.emptyList();
+    }
+
+    /**
+     * 根据精确路径查找模板元信息
+     *
+     * @param exactPath 精确路径,格式: groupId/artifactId/version/filePath/filename
+     * @return 模板元信息,未找到或本地文件不存在返回null
+     */
+    public MetaInfo findByPath(String exactPath) {
+        String normalizedExactPath = SDKUtils.normalizePath(exactPath);
+        if (normalizedExactPath == null) {
+            return null;
+        }
+        String[] parts = normalizedExactPath.split(Pattern.quote(File.separator));
+        if (parts.length < 3) {
+            return null;
+        }
+        CatalogEntry entry = getEntry(parts[0], parts[1]);
+        return entry != null ? entry.byPath().get(normalizedExactPath) : null;
+    }
+
+    /**
+     * 获取模板组最新版本的渲染结果
+     * 同一版本(meta.json未变化)只渲染一次,meta.json变化或模板组失效后重新渲染
+     *
+     * @param groupId    组ID
+     * @param artifactId 项目ID
+     * @param renderKey  渲染结果键,区分同一模板组的不同渲染方式
+     * @param renderer   渲染函数,入参为最新版本的模板元信息
+     * @return 渲染结果,模板组不存在或无可用模板文件返回null
+     */
+    public String getRendered(String groupId, String artifactId, String renderKey,
+                              Function<List<MetaInfo>, String> renderer) {
+        CatalogEntry entry = getEntry(groupId, artifactId);
+        if (entry == null || entry.latest().isEmpty()) {
+            return null;
+        }
+        return entry.rendered().computeIfAbsent(renderKey, key -> renderer.apply(entry.latest()));
+    }
+
+    /**
+     * 使指定模板组的缓存失效
+     *
+     * @param groupId    组ID
+     * @param artifactId 项目ID
+     */
+    public void invalidate(String groupId, String artifactId) {
+        entries.remove(groupId + "/" + artifactId);
+    }
+
+    /**
+     * 使指定groupId下所有模板组的缓存失效
+     *
+     * @param groupId 组ID
+     */
+    public void invalidateGroup(String groupId) {
+        entries.keySet().removeIf(key -> key.startsWith(groupId + "/"));
+    }
+
+    /**
+     * 清空全部缓存
+     */
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    /**
+     * 获取模板组目录条目
+     * 缓存的meta.json修改时间和大小与磁盘一致时直接复用,否则重新解析
+     *
+     * @param groupId    组ID
+     * @param artifactId 项目ID
+     * @return 目录条目,meta.json不存在或解析失败返回null
+     */
+    private CatalogEntry getEntry(String groupId, String artifactId) {
+        String key = groupId + "/" + artifactId;
+        String basePath = SDKUtils.normalizePath(repositoryConfig.getRepositoryDir());
+        Path metaPath = Paths.get(basePath, groupId, artifactId, "meta.json");
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(metaPath, BasicFileAttributes.class);
+        } catch (IOException e) {
+            entries.remove(key);
+            return null;
+        }
+        long lastModified = attrs.lastModifiedTime().toMillis();
+        CatalogEntry cached = entries.get(key);
+        if (cached != null && cached.lastModified() == lastModified && cached.size() == attrs.size()) {
+            return cached;
+        }
+        try {
+            CatalogEntry loaded = load(basePath, metaPath.toFile(), lastModified, attrs.size());
+            entries.put(key, loaded);
+            return loaded;
+        } catch (Exception e) {
+            entries.remove(key);
+            return null;
+        }
+    }
+
+    /**
+     * 解析meta.json并构建目录条目
+     * 模板文件是否存在只在加载时检查一次
+     *
+     * @param basePath     仓库基础路径
+     * @param metaFile     meta.json文件
+     * @param lastModified meta.json修改时间
+     * @param size         meta.json大小
+     * @return 目录条目
+     */
+    private CatalogEntry load(String basePath, File metaFile, long lastModified, long size) {
+        LocalMetaConfig config = JSONUtil.toBean(FileUtil.readUtf8String(metaFile), LocalMetaConfig.class);
+        List<MetaInfo> latest = new ArrayList<>();
+        Map<String, MetaInfo> byPath = new HashMap<>();
+        for (MetaInfo metaInfo : MetaInfoConvertUtil.toLatestMetaInfos(config)) {
+            if (SDKUtils.isTemplateFileExists(basePath, metaInfo)) {
+                latest.add(metaInfo);
+                String fullPath = metaInfo.getGroupId() + File.separator + metaInfo.getArtifactId() + File.separator +
+                        metaInfo.getVersion() + metaInfo.getFilePath() + File.separator + metaInfo.getFilename();
+                byPath.putIfAbsent(SDKUtils.normalizePath(fullPath), metaInfo);
+            }
+        }
+        return new CatalogEntry(lastModified, size, Collections.unmodifiableList(latest), byPath,
+                new ConcurrentHashMap<>());
+    }
+
+    /**
+     * 模板组目录条目
+     *
+     * @param lastModified meta.json修改时间
+     * @param size         meta.json大小
+     * @param latest       最新版本中本地文件存在的模板元信息
+     * @param byPath       规范化完整路径 -> 模板元信息
+     * @param rendered     渲染结果键 -> 渲染结果
+     */
+    private record CatalogEntry(long lastModified, long size, List<MetaInfo> latest, Map<String, MetaInfo> byPath,
+                                Map<String, String> rendered) {
+    }
+}
@@ -0,0 +1,131 @@
+package top.codestyle.mcp.service;
+
+import cn.hutool.core.util.StrUtil;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import top.codestyle.mcp.cache.CacheStats;
+import top.codestyle.mcp.cache.LocalCache;
+import top.codestyle.mcp.config.RepositoryConfig;
+import top.codestyle.mcp.metrics.CodestyleMetrics;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * 模板文件内容服务
+ * 按总字节数限制的LRU内容缓存,键为文件绝对路径+meta.json中的SHA256,命中时再校验文件修改时间和大小,
+ * 模板更新后不会返回旧内容。超过阈值的大文件通过内存映射读取
+ *
+ * @author movclantian
+ * @since 2026-10-18
+ */
+@Service
+@RequiredArgsConstructor
+public class TemplateContentService {
+
+    private final RepositoryConfig repositoryConfig;
+
+    private volatile LocalCache<String, CachedContent> contentCache;
+
+    /**
+     * 读取模板文件内容
+     *
+     * @param templatePath 模板文件绝对路径
+     * @param sha256       meta.json中记录的文件SHA256,可为空
+     * @return 文件内容
+     * @throws IOException 文件不存在或读取失败
+     */
+    public String read(Path templatePath, String sha256) throws IOException {
+        var sample = CodestyleMetrics.start();
+        try {
+            return doRead(templatePath, sha256);
+        } finally {
+            CodestyleMetrics.stopStage(sample, CodestyleMetrics.STAGE_TEMPLATE_READ);
+        }
+    }
+
+    private String doRead(Path templatePath, String sha256) throws IOException {
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(templatePath, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            throw new IOException("模板文件不存在: " + templatePath);
+        }
+        long lastModified = attrs.lastModifiedTime().toMillis();
+        long size = attrs.size();
+
+        String key = templatePath + "#" + StrUtil.nullToEmpty(sha256);
+        var cache = getContentCache();
+        CachedContent cached = cache.get(key, c -> c.lastModified() == lastModified && c.size() == size);
+        if (cached != null) {
+            return cached.content();
+        }
+
+        String content = size >= repositoryConfig.getContentCacheMmapThresholdBytes()
+                ? readMapped(templatePath)
+                : Files.readString(templatePath, StandardCharsets.UTF_8);
+        // 超过缓存总容量的文件不缓存,避免挤掉全部热点条目
+        if (size <= repositoryConfig.getContentCacheMaxBytes()) {
+            cache.put(key, new CachedContent(lastModified, size, content));
+        }
+        return content;
+    }
+
+    /**
+     * 获取内容缓存统计
+     *
+     * @return 缓存统计,weightedSize为已缓存的字节数
+     */
+    public CacheStats getContentCacheStats() {
+        return getContentCache().stats();
+    }
+
+    /**
+     * 通过内存映射读取大文件,避免额外的堆内读缓冲
+     * 与Files.readString一致,遇到非法UTF-8字节时抛出异常而不是替换为U+FFFD
+     *
+     * @param path 文件路径
+     * @return 文件内容
+     * @throws IOException 读取失败或内容不是合法的UTF-8
+     */
+    private static String readMapped(Path path) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT)
+                    .decode(buffer)
+                    .toString();
+        }
+    }
+
+    private LocalCache<String, CachedContent> getContentCache() {
+        if (contentCache == null) {
+            synchronized (this) {
+                if (contentCache == null) {
+                    contentCache = new LocalCache<>(repositoryConfig.getContentCacheMaxBytes(), 0,
+                            c -> (int) Math.min(Integer.MAX_VALUE, c.size()));
+                    CodestyleMetrics.cache("content", this, TemplateContentService::getContentCacheStats);
+                }
+            }
+        }
+        return contentCache;
+    }
+
+    /**
+     * 缓存的文件内容
+     *
+     * @param lastModified 读取时的文件修改时间(毫秒)
+     * @param size         读取时的文件大小(字节)
+     * @param content      文件内容
+     */
+    private record CachedContent(long lastModified, long size, String content) {
+    }
+}
@@ -1,9 +1,12 @@
 package top.codestyle.mcp.service;
 
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
+import top.codestyle.mcp.cache.CacheStats;
 import top.codestyle.mcp.config.RepositoryConfig;
+import top.codestyle.mcp.metrics.CodestyleMetrics;
 import top.codestyle.mcp.model.meta.LocalMetaInfo;
 import top.codestyle.mcp.model.sdk.MetaInfo;
 import top.codestyle.mcp.model.sdk.RemoteMetaConfig;
@@ -12,11 +15,21 @@ import top.codestyle.mcp.util.SDKUtils;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 /**
  * 模板服务
@@ -29,21 +42,56 @@ import java.util.List;
 @RequiredArgsConstructor
 public class TemplateService {
 
+    private static final int REFRESH_THREADS = 2;
+    private static final int REFRESH_QUEUE_CAPACITY = 64;
+
     private final RepositoryConfig repositoryConfig;
 
     @Lazy
     private final LuceneIndexService luceneIndexService;
 
+    private final TemplateCatalogService templateCatalogService;
+
+    private final TemplateContentService templateContentService;
+
+    private final RemoteSearchCacheService remoteSearchCacheService;
+
+    /**
+     * 正在后台更新的模板组(groupId/artifactId),同一模板组同时只提交一个后台更新
+     */
+    private final Set<String> refreshingGroups = ConcurrentHashMap.newKeySet();
+
+    private volatile ExecutorService refreshExecutor;
+
+    /**
+     * 进行中的下载(groupId/artifactId -> 下载结果),同一模板组的并发调用共享同一次下载
+     */
+    private final Map<String, CompletableFuture<Boolean>> inFlightDownloads = new ConcurrentHashMap<>();
+
     /**
      * 根据groupId和artifactId搜索指定模板组
+     * 从内存模板目录读取,meta.json未变化时不再重复解析
      *
      * @param groupId    组ID
      * @param artifactId 项目ID
      * @return 匹配的模板元信息列表
      */
     public List<MetaInfo> searchLocalRepository(String groupId, String artifactId) {
-        String localRepoPath = repositoryConfig.getRepositoryDir();
-        return SDKUtils.searchLocalRepository(groupId, artifactId, localRepoPath);
+        return templateCatalogService.getLatestMetaInfos(groupId, artifactId);
+    }
+
+    /**
+     * 获取模板组最新版本的渲染结果,同一版本只渲染一次
+     *
+     * @param groupId    组ID
+     * @param artifactId 项目ID
+     * @param renderKey  渲染结果键
+     * @param renderer   渲染函数,入参为最新版本的模板元信息
+     * @return 渲染结果,模板组不存在或无可用模板文件返回null
+     */
+    public String getRendered(String groupId, String artifactId, String renderKey,
+                              Function<List<MetaInfo>, String> renderer) {
+        return templateCatalogService.getRendered(groupId, artifactId, renderKey, renderer);
     }
 
     /**
@@ -55,14 +103,10 @@ public class TemplateService {
      * @throws IOException 文件读取异常
      */
     public LocalMetaInfo searchByPath(String exactPath) throws IOException {
-        String localRepoPath = repositoryConfig.getRepositoryDir();
-
-        // 从本地仓库中查找模板
-        MetaInfo localResult = SDKUtils.searchByPath(exactPath, localRepoPath);
+        // 从内存模板目录中查找模板
+        LocalMetaInfo localResult = searchLocalByPath(exactPath);
         if (localResult != null) {
-            LocalMetaInfo result = MetaInfoConvertUtil.convert(localResult);
-            result.setTemplateContent(readTemplateContent(localResult));
-            return result;
+            return localResult;
         }
 
         // 本地未找到,尝试智能下载
@@ -83,12 +127,7 @@ public class TemplateService {
 
                 // 下载成功后重新搜索
                 if (downloadSuccess) {
-                    localResult = SDKUtils.searchByPath(exactPath, localRepoPath);
-                    if (localResult != null) {
-                        LocalMetaInfo result = MetaInfoConvertUtil.convert(localResult);
-                        result.setTemplateContent(readTemplateContent(localResult));
-                        return result;
-                    }
+                    return searchLocalByPath(exactPath);
                 }
             }
         } catch (Exception ignored) {
@@ -97,28 +136,220 @@ public class TemplateService {
         return null;
     }
 
+    /**
+     * 仅在本地仓库中按路径查找模板,不触发远程下载
+     *
+     * @param exactPath 精确路径,格式: groupId/artifactId/version/filePath/filename
+     * @return 模板元信息,未找到返回null
+     * @throws IOException 文件读取异常
+     */
+    public LocalMetaInfo searchLocalByPath(String exactPath) throws IOException {
+        MetaInfo localResult = templateCatalogService.findByPath(exactPath);
+        if (localResult == null) {
+            return null;
+        }
+        LocalMetaInfo result = MetaInfoConvertUtil.convert(localResult);
+        result.setTemplateContent(readTemplateContent(localResult));
+        return result;
+    }
+
+    /**
+     * 确保模板组可用
+     * 本地已安装该模板组且启用后台更新时立即返回,由后台线程校验SHA256并下载新版本;
+     * 仅本地缺失的模板组同步下载
+     *
+     * @param remoteConfig 远程模板配置
+     * @return 模板组是否可用
+     */
+    public boolean ensureTemplate(RemoteMetaConfig remoteConfig) {
+        return serveInstalled(remoteConfig) || smartDownloadTemplate(remoteConfig);
+    }
+
+    /**
+     * 异步确保模板组可用,需要同步下载时在指定线程池中下载,调用方线程不等待
+     *
+     * @param remoteConfig 远程模板配置
+     * @param executor     下载线程池
+     * @return 模板组是否可用
+     */
+    public CompletableFuture<Boolean> ensureTemplateAsync(RemoteMetaConfig remoteConfig, Executor executor) {
+        return serveInstalled(remoteConfig)
+                ? CompletableFuture.completedFuture(true)
+                : smartDownloadTemplateAsync(remoteConfig, executor);
+    }
+
+    /**
+     * 本地已安装该模板组且启用后台更新时提交后台更新
+     *
+     * @param remoteConfig 远程模板配置
+     * @return 是否可直接使用本地版本
+     */
+    private boolean serveInstalled(RemoteMetaConfig remoteConfig) {
+        if (repositoryConfig.isDownloadBackgroundRefreshEnabled()
+                && !searchLocalRepository(remoteConfig.getGroupId(), remoteConfig.getArtifactId()).isEmpty()) {
+            refreshInBackground(remoteConfig);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 提交模板组后台更新
+     * 新版本文件先校验再移动到位,meta.json最后原子替换,替换前读取的仍是完整的旧版本
+     *
+     * @param remoteConfig 远程模板配置
+     */
+    private void refreshInBackground(RemoteMetaConfig remoteConfig) {
+        String group = remoteConfig.getGroupId() + "/" + remoteConfig.getArtifactId();
+        if (!refreshingGroups.add(group)) {
+            return;
+        }
+        try {
+            refreshExecutor().execute(() -> {
+                try {
+                    boolean success = smartDownloadTemplate(remoteConfig);
+                    CodestyleMetrics.increment("codestyle.download.background",
+                            "result", success ? CodestyleMetrics.OUTCOME_SUCCESS : CodestyleMetrics.OUTCOME_ERROR);
+                } finally {
+                    refreshingGroups.remove(group);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // 后台队列已满,本次继续使用本地版本,下次检索时再更新
+            refreshingGroups.remove(group);
+            CodestyleMetrics.increment("codestyle.download.background", "result", "rejected");
+        }
+    }
+
+    private ExecutorService refreshExecutor() {
+        ExecutorService executor = refreshExecutor;
+        if (executor == null) {
+            synchronized (this) {
+                executor = refreshExecutor;
+                if (executor == null) {
+                    AtomicInteger seq = new AtomicInteger();
+                    executor = refreshExecutor = new ThreadPoolExecutor(
+                            REFRESH_THREADS, REFRESH_THREADS, 60, TimeUnit.SECONDS,
+                            new LinkedBlockingQueue<>(REFRESH_QUEUE_CAPACITY),
+                            r -> {
+                                var thread = new Thread(r, "template-refresh-" + seq.incrementAndGet());
+                                thread.setDaemon(true);
+                                return thread;
+                            });
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * 停止后台更新线程
+     */
+    @PreDestroy
+    public void destroy() {
+        if (refreshExecutor != null) {
+            refreshExecutor.shutdownNow();
+        }
+    }
+
     /**
      * 智能下载或更新模板
-     * 根据SHA256哈希值判断是否需要更新
+     * 根据SHA256哈希值判断是否需要更新,按配置只下载变化的文件。
+     * 同一模板组同时只有一次下载,其间的其他调用等待并共享其结果,不同模板组互不影响
      *
      * @param remoteConfig 远程模板配置
      * @return 是否成功
      */
     public boolean smartDownloadTemplate(RemoteMetaConfig remoteConfig) {
+        String group = remoteConfig.getGroupId() + "/" + remoteConfig.getArtifactId();
+        CompletableFuture<Boolean> download = new CompletableFuture<>();
+        CompletableFuture<Boolean> inFlight = inFlightDownloads.putIfAbsent(group, download);
+        if (inFlight != null) {
+            CodestyleMetrics.increment("codestyle.download.coalesced");
+            return inFlight.join();
+        }
+        return runDownload(remoteConfig, group, download);
+    }
+
+    /**
+     * 异步智能下载或更新模板,在指定线程池中下载,与同步调用共享同一模板组的进行中下载
+     *
+     * @param remoteConfig 远程模板配置
+     * @param executor     下载线程池
+     * @return 是否成功,线程池已满时以RejectedExecutionException异常完成
+     */
+    public CompletableFuture<Boolean> smartDownloadTemplateAsync(RemoteMetaConfig remoteConfig, Executor executor) {
+        String group = remoteConfig.getGroupId() + "/" + remoteConfig.getArtifactId();
+        CompletableFuture<Boolean> download = new CompletableFuture<>();
+        CompletableFuture<Boolean> inFlight = inFlightDownloads.putIfAbsent(group, download);
+        if (inFlight != null) {
+            CodestyleMetrics.increment("codestyle.download.coalesced");
+            return inFlight;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    runDownload(remoteConfig, group, download);
+                } catch (RuntimeException ignored) {
+                    // 结果已以false完成
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlightDownloads.remove(group, download);
+            download.completeExceptionally(e);
+        }
+        return download;
+    }
+
+    /**
+     * 执行下载并发布结果,结束后移除进行中记录
+     *
+     * @param remoteConfig 远程模板配置
+     * @param group        groupId/artifactId
+     * @param download     本次下载的结果
+     * @return 是否成功
+     */
+    private boolean runDownload(RemoteMetaConfig remoteConfig, String group, CompletableFuture<Boolean> download) {
+        try {
+            boolean success = downloadAndIndex(remoteConfig);
+            download.complete(success);
+            return success;
+        } catch (RuntimeException e) {
+            download.complete(false);
+            throw e;
+        } finally {
+            inFlightDownloads.remove(group, download);
+        }
+    }
+
+    /**
+     * 下载或更新模板并刷新模板目录和索引
+     *
+     * @param remoteConfig 远程模板配置
+     * @return 是否成功
+     */
+    private boolean downloadAndIndex(RemoteMetaConfig remoteConfig) {
         String localRepoPath = repositoryConfig.getRepositoryDir();
         String remoteBaseUrl = repositoryConfig.getRemotePath();
-        boolean success = SDKUtils.smartDownloadTemplate(localRepoPath, remoteBaseUrl, remoteConfig);
+        var downloadSample = CodestyleMetrics.start();
+        boolean success = SDKUtils.smartDownloadTemplate(localRepoPath, remoteBaseUrl, remoteConfig,
+                repositoryConfig.isDownloadDifferentialEnabled());
+        CodestyleMetrics.stopStage(downloadSample, CodestyleMetrics.STAGE_DOWNLOAD);
 
-        // 下载成功后更新Lucene索引
+        // 下载成功后刷新模板目录并更新Lucene索引
         if (success) {
+            var indexSample = CodestyleMetrics.start();
             try {
                 String groupId = remoteConfig.getGroupId();
                 String artifactId = remoteConfig.getArtifactId();
+                templateCatalogService.invalidate(groupId, artifactId);
                 String description = remoteConfig.getDescription();
                 String metaPath = localRepoPath + File.separator + groupId + File.separator +
                         artifactId + File.separator + "meta.json";
                 luceneIndexService.updateIndex(groupId, artifactId, description, metaPath);
             } catch (Exception ignored) {
+            } finally {
+                CodestyleMetrics.stopStage(indexSample, CodestyleMetrics.STAGE_INDEX_UPDATE);
             }
         }
         return success;
@@ -126,18 +357,28 @@ public class TemplateService {
 
     /**
      * 从远程仓库获取元配置
+     * 经远程检索缓存获取,有效期内不访问远程
      *
      * @param templateKeyword 模板关键词
      * @return 远程模板配置
      */
     public RemoteMetaConfig fetchRemoteMetaConfig(String templateKeyword) {
-        String remoteBaseUrl = repositoryConfig.getRemotePath();
-        return SDKUtils.fetchRemoteMetaConfig(remoteBaseUrl, templateKeyword);
+        return remoteSearchCacheService.fetch(templateKeyword);
+    }
+
+    /**
+     * 异步从远程仓库获取元配置,等待远程响应期间不占用调用方线程
+     *
+     * @param templateKeyword 模板关键词
+     * @return 远程模板配置,远程不可访问时以null完成
+     */
+    public CompletableFuture<RemoteMetaConfig> fetchRemoteMetaConfigAsync(String templateKeyword) {
+        return remoteSearchCacheService.fetchAsync(templateKeyword);
     }
 
     /**
      * 读取模板文件内容
-     * 从本地缓存目录读取
+     * 经内容缓存读取,文件未变化时不再访问磁盘内容
      *
      * @param info 模板元信息
      * @return 模板文件内容
@@ -156,13 +397,16 @@ public class TemplateService {
                 .toAbsolutePath()
                 .normalize();
 
-        // 校验文件是否存在
-        if (!Files.exists(templatePath)) {
-            throw new IOException("模板文件不存在: " + templatePath);
-        }
+        return templateContentService.read(templatePath, info.getSha256());
+    }
 
-        // 读取文件内容(一次性读入,文件通常几十KB以内,性能足够)
-        return Files.readString(templatePath, StandardCharsets.UTF_8);
+    /**
+     * 获取模板内容缓存统计
+     *
+     * @return 缓存统计
+     */
+    public CacheStats getContentCacheStats() {
+        return templateContentService.getContentCacheStats();
     }
 
     /**
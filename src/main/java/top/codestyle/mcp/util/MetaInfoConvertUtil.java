@@ -106,9 +106,18 @@ public class MetaInfoConvertUtil {
      * @throws IOException 文件读取异常
      */
     public static List<MetaInfo> parseMetaJsonLatestOnly(File metaFile) throws IOException {
-        List<MetaInfo> result = new ArrayList<>();
-
         LocalMetaConfig localConfig = JSONUtil.toBean(FileUtil.readUtf8String(metaFile), LocalMetaConfig.class);
+        return toLatestMetaInfos(localConfig);
+    }
+
+    /**
+     * 将已解析的 meta.json 配置中“最新版本”转换为模板元信息列表
+     *
+     * @param localConfig 已解析的 meta.json 配置
+     * @return 仅包含最新版本文件的模板元信息列表
+     */
+    public static List<MetaInfo> toLatestMetaInfos(LocalMetaConfig localConfig) {
+        List<MetaInfo> result = new ArrayList<>();
 
         String groupId = localConfig.getGroupId();
         String artifactId = localConfig.getArtifactId();
@@ -0,0 +1,115 @@
+package top.codestyle.mcp.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 预编译的提示词模板
+ * 加载时将模板按%{s}占位符拆分为字面量片段,渲染时单次顺序拼接,不使用正则、不重复扫描
+ *
+ * @author movclantian
+ * @since 2026-10-18
+ */
+public final class PromptTemplate {
+
+    /**
+     * 占位符
+     */
+    public static final String PLACEHOLDER = "%{s}";
+
+    /**
+     * 字面量片段,第i个片段位于第i个占位符之前,片段数 = 占位符数 + 1
+     */
+    private final String[] segments;
+    private final int literalLength;
+
+    private PromptTemplate(String[] segments) {
+        this.segments = segments;
+        int length = 0;
+        for (String segment : segments) {
+            length += segment.length();
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * 编译模板
+     *
+     * @param template 模板内容
+     * @return 预编译模板
+     */
+    public static PromptTemplate compile(String template) {
+        Objects.requireNonNull(template, "template must not be null");
+        List<String> segments = new ArrayList<>();
+        int from = 0, idx;
+        while ((idx = template.indexOf(PLACEHOLDER, from)) != -1) {
+            segments.add(template.substring(from, idx));
+            from = idx + PLACEHOLDER.length();
+        }
+        segments.add(template.substring(from));
+        return new PromptTemplate(segments.toArray(new String[0]));
+    }
+
+    /**
+     * 获取占位符数量
+     *
+     * @return 占位符数量
+     */
+    public int slotCount() {
+        return segments.length - 1;
+    }
+
+    /**
+     * 获取指定占位符之前的字面量片段
+     *
+     * @param index 片段序号
+     * @return 字面量片段
+     */
+    public String segment(int index) {
+        return segments[index];
+    }
+
+    /**
+     * 渲染模板
+     *
+     * @param params 可变参数,依次对应模板中的%{s},null按空字符串处理
+     * @return 渲染结果
+     * @throws IllegalArgumentException 参数数量与占位符数量不匹配
+     */
+    public String render(String... params) {
+        return render(0, params);
+    }
+
+    /**
+     * 从指定占位符开始渲染模板,输出不包含该占位符之前的字面量片段
+     *
+     * @param firstSlot 起始占位符序号
+     * @param params    可变参数,依次对应起始占位符及之后的%{s}
+     * @return 渲染结果
+     * @throws IllegalArgumentException 参数数量与占位符数量不匹配
+     */
+    public String render(int firstSlot, String... params) {
+        checkParams(firstSlot, params);
+        int capacity = literalLength;
+        for (String p : params) {
+            capacity += p == null ? 0 : p.length();
+        }
+        StringBuilder sb = new StringBuilder(capacity);
+        for (int i = 0; i < params.length; i++) {
+            sb.append(segments[firstSlot + i]);
+            if (params[i] != null) {
+                sb.append(params[i]);
+            }
+        }
+        return sb.append(segments[segments.length - 1]).toString();
+    }
+
+    private void checkParams(int firstSlot, String[] params) {
+        Objects.requireNonNull(params, "params must not be null");
+        int expected = slotCount() - firstSlot;
+        if (expected != params.length) {
+            throw new IllegalArgumentException("模板需要 " + expected + " 个参数，实际传入 " + params.length);
+        }
+    }
+}
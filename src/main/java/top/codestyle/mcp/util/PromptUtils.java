@@ -1,11 +1,16 @@
 package top.codestyle.mcp.util;
 
+import cn.hutool.core.util.StrUtil;
 import top.codestyle.mcp.model.meta.LocalMetaInfo;
 import top.codestyle.mcp.model.sdk.MetaInfo;
 import top.codestyle.mcp.model.sdk.MetaVariable;
 import top.codestyle.mcp.model.tree.TreeNode;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -82,25 +87,125 @@ public class PromptUtils {
     }
 
     /**
-     * 递归构建目录树的字符串表示
+     * 构建目录树的字符串表示
      *
      * @param node   当前节点
      * @param indent 当前缩进
      * @return 格式化的目录树字符串
      */
     public static String buildTreeStr(TreeNode node, String indent) {
-        StringBuilder sb = new StringBuilder();
+        return buildTreeStr(node, indent, 0, 0);
+    }
+
+    /**
+     * 构建目录树的字符串表示,可限制输出节点数和目录深度
+     * 迭代遍历并写入同一个缓冲区,缩进字符串按深度缓存复用,输出与逐层递归拼接的结果一致
+     *
+     * @param node     当前节点
+     * @param indent   当前缩进
+     * @param maxNodes 最多输出的节点(目录和文件)数,小于等于0表示不限制,超出部分以省略行代替
+     * @param maxDepth 最多展开的目录深度(相对当前节点),小于等于0表示不限制,更深的内容以省略行代替
+     * @return 格式化的目录树字符串
+     */
+    public static String buildTreeStr(TreeNode node, String indent, int maxNodes, int maxDepth) {
+        StringBuilder sb = new StringBuilder(256);
+        List<String> indents = new ArrayList<>();
+        indents.add(indent);
+        int nodeLimit = maxNodes > 0 ? maxNodes : Integer.MAX_VALUE;
+        int depthLimit = maxDepth > 0 ? maxDepth : Integer.MAX_VALUE;
+        int emitted = 0;
+
+        Deque<TreeFrame> stack = new ArrayDeque<>();
         if (!node.getName().isEmpty()) {
             sb.append(indent).append(node.getName()).append("/\n");
+            emitted++;
+        }
+        stack.push(new TreeFrame(node, 0, node.getChildren().values().iterator()));
+        while (!stack.isEmpty()) {
+            if (emitted >= nodeLimit) {
+                // 恰好输出完全部节点时不追加省略行
+                if (hasRemaining(stack))
+                    sb.append(indentOf(indents, stack.peek().depth())).append("... (节点过多,已省略其余内容)\n");
+                break;
+            }
+            TreeFrame frame = stack.peek();
+            if (frame.children().hasNext()) {
+                TreeNode child = frame.children().next();
+                int depth = frame.depth() + 1;
+                String childIndent = indentOf(indents, depth);
+                if (!child.getName().isEmpty()) {
+                    sb.append(childIndent).append(child.getName()).append("/\n");
+                    emitted++;
+                }
+                if (depth >= depthLimit && (!child.getChildren().isEmpty() || !child.getFiles().isEmpty())) {
+                    sb.append(childIndent).append("... (省略 ").append(countFiles(child)).append(" 个文件)\n");
+                    continue;
+                }
+                stack.push(new TreeFrame(child, depth, child.getChildren().values().iterator()));
+                continue;
+            }
+            // 子目录输出完毕后输出当前目录的文件
+            String fileIndent = indentOf(indents, frame.depth());
+            for (String f : frame.node().getFiles()) {
+                if (emitted >= nodeLimit) {
+                    sb.append(fileIndent).append("... (节点过多,已省略其余内容)\n");
+                    return sb.toString();
+                }
+                sb.append(fileIndent).append("└── ").append(f, f.lastIndexOf('/') + 1, f.length()).append('\n');
+                emitted++;
+            }
+            stack.pop();
         }
-        node.getChildren().values().forEach(c -> sb.append(buildTreeStr(c, indent + "  ")));
-        node.getFiles().forEach(f -> {
-            String fileName = f.substring(f.lastIndexOf("/") + 1);
-            sb.append(indent).append("└── ").append(fileName).append('\n');
-        });
         return sb.toString();
     }
 
+    /**
+     * 栈中是否还有未输出的子目录或文件,文件在子目录全部输出后才输出,栈中目录的文件均未输出
+     */
+    private static boolean hasRemaining(Deque<TreeFrame> stack) {
+        for (TreeFrame frame : stack) {
+            if (frame.children().hasNext() || !frame.node().getFiles().isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 获取指定深度的缩进(基础缩进 + 每层两个空格),按深度缓存
+     */
+    private static String indentOf(List<String> indents, int depth) {
+        while (indents.size() <= depth) {
+            indents.add(indents.get(indents.size() - 1) + "  ");
+        }
+        return indents.get(depth);
+    }
+
+    /**
+     * 统计节点下的文件总数
+     */
+    private static int countFiles(TreeNode node) {
+        int count = 0;
+        Deque<TreeNode> stack = new ArrayDeque<>();
+        stack.push(node);
+        while (!stack.isEmpty()) {
+            TreeNode current = stack.pop();
+            count += current.getFiles().size();
+            current.getChildren().values().forEach(stack::push);
+        }
+        return count;
+    }
+
+    /**
+     * 目录树遍历栈帧
+     *
+     * @param node     目录节点
+     * @param depth    相对起始节点的深度
+     * @param children 尚未输出的子目录
+     */
+    private record TreeFrame(TreeNode node, int depth, Iterator<TreeNode> children) {
+    }
+
     /**
      * 构建变量信息的字符串表示
      *
@@ -113,6 +218,27 @@ public class PromptUtils {
         return sb.toString();
     }
 
+    /**
+     * 提取描述的简短摘要
+     * 取第一行非空文本(去除Markdown标题符号),超出长度时截断
+     *
+     * @param description 模板描述
+     * @param maxLength   最大长度
+     * @return 简短摘要
+     */
+    public static String abbreviate(String description, int maxLength) {
+        if (StrUtil.isBlank(description)) {
+            return "";
+        }
+        for (String line : description.split("\\R")) {
+            String text = line.trim().replaceFirst("^#+", "").trim();
+            if (!text.isEmpty()) {
+                return StrUtil.maxLength(text, maxLength);
+            }
+        }
+        return "";
+    }
+
     /**
      * 构建模板文件字符串（包含变量和模板内容）
      *
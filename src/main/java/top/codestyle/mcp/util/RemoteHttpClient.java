@@ -0,0 +1,277 @@
+package top.codestyle.mcp.util;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 远程仓库HTTP客户端
+ * 所有远程调用共享同一个OkHttpClient: 连接池复用keep-alive连接,TLS下经ALPN协商HTTP/2,
+ * 未显式指定Accept-Encoding时自动请求并透明解压gzip;同一主机的并发同步请求数受信号量限制,
+ * 流式响应在响应体关闭时才释放许可,异步请求由Dispatcher按主机排队,不占用信号量
+ *
+ * @author movclantian
+ * @since 2026-10-18
+ */
+public final class RemoteHttpClient {
+
+    private static final String USER_AGENT = "MCP-CodeStyle-Server/1.0";
+
+    private static volatile Settings settings = Settings.DEFAULTS;
+    private static volatile OkHttpClient client;
+    private static final Map<String, Semaphore> HOST_PERMITS = new ConcurrentHashMap<>();
+
+    private RemoteHttpClient() {
+    }
+
+    /**
+     * 客户端配置
+     *
+     * @param connectTimeoutMs     连接超时(毫秒)
+     * @param readTimeoutMs        读取超时(毫秒),流式下载时为两次读取之间的最长间隔
+     * @param maxIdleConnections   连接池最大空闲连接数
+     * @param keepAliveMs          空闲连接保活时间(毫秒)
+     * @param maxRequestsPerHost   同一主机最大并发请求数
+     */
+    public record Settings(long connectTimeoutMs, long readTimeoutMs, int maxIdleConnections,
+                           long keepAliveMs, int maxRequestsPerHost) {
+
+        public static final Settings DEFAULTS = new Settings(5000, 30000, 8, 300000, 8);
+    }
+
+    /**
+     * 按新配置重建共享客户端,旧客户端的空闲连接随即关闭
+     *
+     * @param newSettings 客户端配置
+     */
+    public static synchronized void configure(Settings newSettings) {
+        OkHttpClient old = client;
+        settings = newSettings;
+        client = null;
+        HOST_PERMITS.clear();
+        if (old != null) {
+            old.connectionPool().evictAll();
+        }
+    }
+
+    /**
+     * 获取共享客户端,首次调用时按当前配置创建
+     *
+     * @return 共享客户端
+     */
+    public static OkHttpClient client() {
+        OkHttpClient c = client;
+        if (c == null) {
+            synchronized (RemoteHttpClient.class) {
+                c = client;
+                if (c == null) {
+                    c = client = build(settings);
+                }
+            }
+        }
+        return c;
+    }
+
+    /**
+     * 发送GET请求并以字符串返回响应体
+     *
+     * @param url    请求地址
+     * @param params 查询参数
+     * @return 响应体
+     * @throws IOException 网络错误或响应状态非2xx
+     */
+    public static String getString(String url, Map<String, String> params) throws IOException {
+        try (Response response = get(url, params)) {
+            if (!response.isSuccessful()) {
+                throw new IOException("HTTP " + response.code() + ": " + url);
+            }
+            return response.body().string();
+        }
+    }
+
+    /**
+     * 发送GET请求,由调用方读取并关闭响应
+     *
+     * @param url    请求地址
+     * @param params 查询参数
+     * @return 响应,响应体可流式读取
+     * @throws IOException 网络错误
+     */
+    public static Response get(String url, Map<String, String> params) throws IOException {
+        return get(url, params, Map.of());
+    }
+
+    /**
+     * 发送带附加请求头的GET请求,由调用方读取并关闭响应
+     *
+     * @param url     请求地址
+     * @param params  查询参数
+     * @param headers 附加请求头,如If-None-Match
+     * @return 响应,响应体可流式读取
+     * @throws IOException 网络错误
+     */
+    public static Response get(String url, Map<String, String> params, Map<String, String> headers)
+            throws IOException {
+        return newCall(url, params, headers, false).execute();
+    }
+
+    /**
+     * 异步发送GET请求,等待响应期间不占用调用方线程,由调用方读取并关闭响应
+     * 回调在OkHttp的分发线程上执行,同一主机的并发数受Dispatcher限制
+     *
+     * @param url     请求地址
+     * @param params  查询参数
+     * @param headers 附加请求头
+     * @return 响应,网络错误时以IOException异常完成
+     */
+    public static CompletableFuture<Response> getAsync(String url, Map<String, String> params,
+            Map<String, String> headers) {
+        CompletableFuture<Response> future = new CompletableFuture<>();
+        Call call;
+        try {
+            call = newCall(url, params, headers, true);
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            return future;
+        }
+        call.enqueue(new Callback() {
+            @Override
+            public void onResponse(Call c, Response response) {
+                if (!future.complete(response)) {
+                    response.close();
+                }
+            }
+
+            @Override
+            public void onFailure(Call c, IOException e) {
+                future.completeExceptionally(e);
+            }
+        });
+        // 调用方取消时中止请求,释放连接
+        future.whenComplete((response, e) -> {
+            if (future.isCancelled()) {
+                call.cancel();
+            }
+        });
+        return future;
+    }
+
+    private static Call newCall(String url, Map<String, String> params, Map<String, String> headers,
+            boolean async) {
+        HttpUrl parsed = HttpUrl.get(url);
+        HttpUrl.Builder builder = parsed.newBuilder();
+        params.forEach(builder::addQueryParameter);
+        Request.Builder request = new Request.Builder()
+                .url(builder.build())
+                .header("User-Agent", USER_AGENT);
+        headers.forEach(request::header);
+        if (async) {
+            request.tag(AsyncCall.class, AsyncCall.INSTANCE);
+        }
+        return client().newCall(request.build());
+    }
+
+    private static OkHttpClient build(Settings s) {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequestsPerHost(s.maxRequestsPerHost());
+        return new OkHttpClient.Builder()
+                .connectTimeout(s.connectTimeoutMs(), TimeUnit.MILLISECONDS)
+                .readTimeout(s.readTimeoutMs(), TimeUnit.MILLISECONDS)
+                .connectionPool(new ConnectionPool(s.maxIdleConnections(), s.keepAliveMs(), TimeUnit.MILLISECONDS))
+                .protocols(List.of(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                .dispatcher(dispatcher)
+                .addInterceptor(new HostLimitInterceptor(s))
+                .build();
+    }
+
+    /**
+     * 异步请求标记,带此标记的请求已由Dispatcher限制并发
+     */
+    private enum AsyncCall {
+        INSTANCE
+    }
+
+    /**
+     * 同步调用不经过Dispatcher排队,按主机用信号量限制并发
+     * 异步请求直接放行,避免分发线程阻塞在信号量上
+     */
+    private static final class HostLimitInterceptor implements Interceptor {
+
+        private final Settings settings;
+
+        HostLimitInterceptor(Settings settings) {
+            this.settings = settings;
+        }
+
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            if (chain.request().tag(AsyncCall.class) != null) {
+                return chain.proceed(chain.request());
+            }
+            String host = chain.request().url().host() + ":" + chain.request().url().port();
+            Semaphore permits = HOST_PERMITS.computeIfAbsent(host,
+                    k -> new Semaphore(settings.maxRequestsPerHost(), true));
+            try {
+                if (!permits.tryAcquire(settings.connectTimeoutMs() + settings.readTimeoutMs(),
+                        TimeUnit.MILLISECONDS)) {
+                    throw new InterruptedIOException("等待主机并发许可超时: " + host);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("等待主机并发许可被中断: " + host);
+            }
+
+            AtomicBoolean released = new AtomicBoolean();
+            Runnable release = () -> {
+                if (released.compareAndSet(false, true)) {
+                    permits.release();
+                }
+            };
+            try {
+                Response response = chain.proceed(chain.request());
+                ResponseBody body = response.body();
+                if (body == null) {
+                    release.run();
+                    return response;
+                }
+                BufferedSource source = Okio.buffer(new ForwardingSource(body.source()) {
+                    @Override
+                    public void close() throws IOException {
+                        try {
+                            super.close();
+                        } finally {
+                            release.run();
+                        }
+                    }
+                });
+                return response.newBuilder()
+                        .body(ResponseBody.create(source, body.contentType(), body.contentLength()))
+                        .build();
+            } catch (IOException | RuntimeException e) {
+                release.run();
+                throw e;
+            }
+        }
+    }
+}
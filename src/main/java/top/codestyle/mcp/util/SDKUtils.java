@@ -2,18 +2,21 @@ package top.codestyle.mcp.util;
 
 import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.io.FileUtil;
-import cn.hutool.core.io.IoUtil;
+import cn.hutool.core.io.IORuntimeException;
 import cn.hutool.core.util.StrUtil;
-import cn.hutool.core.util.ZipUtil;
-import cn.hutool.http.HttpRequest;
-import cn.hutool.http.HttpResponse;
 import cn.hutool.json.JSONUtil;
+import okhttp3.Response;
+import top.codestyle.mcp.metrics.CodestyleMetrics;
 import top.codestyle.mcp.model.meta.LocalMetaConfig;
 import top.codestyle.mcp.model.sdk.MetaInfo;
 import top.codestyle.mcp.model.sdk.RemoteMetaConfig;
 
 import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.regex.Pattern;
 
 /**
@@ -106,21 +109,76 @@ public class SDKUtils {
      * @return 远程模板配置,失败返回null
      */
     public static RemoteMetaConfig fetchRemoteMetaConfig(String remoteBaseUrl, String templateKeyword) {
-        try {
-            String responseBody = HttpRequest.get(remoteBaseUrl + "/api/mcp/search")
-                    .form("templateKeyword", templateKeyword)
-                    .timeout(30000)
-                    .header("User-Agent", "MCP-CodeStyle-Server/1.0")
-                    .execute()
-                    .body();
-
-            return JSONUtil.toBean(responseBody, RemoteMetaConfig.class);
+        RemoteFetchResult result = fetchRemoteMetaConfig(remoteBaseUrl, templateKeyword, null);
+        return result != null ? result.config() : null;
+    }
 
+    /**
+     * 从远程仓库条件获取元配置
+     * 携带上次响应的ETag时发送If-None-Match,远程未变化返回304时不再传输和解析响应体
+     *
+     * @param remoteBaseUrl   远程仓库基础URL
+     * @param templateKeyword 模板关键词
+     * @param etag            上次响应的ETag,可为空
+     * @return 获取结果,失败返回null
+     */
+    public static RemoteFetchResult fetchRemoteMetaConfig(String remoteBaseUrl, String templateKeyword,
+            String etag) {
+        try (Response response = RemoteHttpClient.get(remoteBaseUrl + "/api/mcp/search",
+                Map.of("templateKeyword", templateKeyword), conditionalHeaders(etag))) {
+            return toFetchResult(response, etag);
         } catch (Exception e) {
             return null;
         }
     }
 
+    /**
+     * 异步从远程仓库条件获取元配置,等待远程响应期间不占用调用方线程
+     *
+     * @param remoteBaseUrl   远程仓库基础URL
+     * @param templateKeyword 模板关键词
+     * @param etag            上次响应的ETag,可为空
+     * @return 获取结果,失败时以null完成
+     */
+    public static CompletableFuture<RemoteFetchResult> fetchRemoteMetaConfigAsync(String remoteBaseUrl,
+            String templateKeyword, String etag) {
+        return RemoteHttpClient.getAsync(remoteBaseUrl + "/api/mcp/search",
+                        Map.of("templateKeyword", templateKeyword), conditionalHeaders(etag))
+                .thenApply(response -> {
+                    try (response) {
+                        return toFetchResult(response, etag);
+                    } catch (Exception e) {
+                        return null;
+                    }
+                })
+                .exceptionally(e -> null);
+    }
+
+    private static Map<String, String> conditionalHeaders(String etag) {
+        return StrUtil.isBlank(etag) ? Map.of() : Map.of("If-None-Match", etag);
+    }
+
+    private static RemoteFetchResult toFetchResult(Response response, String etag) throws IOException {
+        if (response.code() == 304) {
+            return new RemoteFetchResult(null, etag, true);
+        }
+        if (!response.isSuccessful()) {
+            return null;
+        }
+        RemoteMetaConfig config = JSONUtil.toBean(response.body().string(), RemoteMetaConfig.class);
+        return new RemoteFetchResult(config, response.header("ETag"), false);
+    }
+
+    /**
+     * 远程元配置获取结果
+     *
+     * @param config      远程模板配置,未变化时为null
+     * @param etag        响应的ETag,远程未提供时为null
+     * @param notModified 远程返回304,调用方应继续使用已缓存的配置
+     */
+    public record RemoteFetchResult(RemoteMetaConfig config, String etag, boolean notModified) {
+    }
+
     /**
      * 智能下载或更新模板
      * 通过SHA256哈希值判断是否需要更新,下载ZIP并解压到本地仓库,更新meta.json
@@ -132,11 +190,26 @@ public class SDKUtils {
      */
     public static boolean smartDownloadTemplate(String localRepoPath, String remoteBaseUrl,
             RemoteMetaConfig remoteConfig) {
+        return smartDownloadTemplate(localRepoPath, remoteBaseUrl, remoteConfig, true);
+    }
+
+    /**
+     * 智能下载或更新模板
+     * 本地已有该版本且仅部分文件缺失或SHA256变化时,可只下载变化的文件;差量下载失败时回退为整组下载
+     *
+     * @param localRepoPath 本地仓库路径
+     * @param remoteBaseUrl 远程仓库基础URL
+     * @param remoteConfig  远程模板配置
+     * @param differential  是否启用差量下载
+     * @return 是否成功
+     */
+    public static boolean smartDownloadTemplate(String localRepoPath, String remoteBaseUrl,
+            RemoteMetaConfig remoteConfig, boolean differential) {
         try {
             String groupId = remoteConfig.getGroupId();
             String artifactId = remoteConfig.getArtifactId();
 
-            boolean needsUpdate = false;
+            List<RemoteMetaConfig.FileInfo> changedFiles;
             try {
                 String localMetaPath = localRepoPath + File.separator +
                         groupId + File.separator +
@@ -144,20 +217,21 @@ public class SDKUtils {
                         "meta.json";
                 File localMetaFile = new File(localMetaPath);
 
-                if (!localMetaFile.exists()) {
-                    needsUpdate = true;
-                } else {
-                    needsUpdate = checkIfNeedsUpdate(localMetaFile, remoteConfig, localRepoPath, groupId, artifactId);
-                }
+                changedFiles = localMetaFile.exists()
+                        ? findChangedFiles(localMetaFile, remoteConfig, localRepoPath, groupId, artifactId)
+                        : null;
             } catch (Exception e) {
-                needsUpdate = true;
+                changedFiles = null;
             }
 
-            if (needsUpdate) {
-                return downloadAndExtractTemplate(localRepoPath, remoteBaseUrl, groupId, artifactId, remoteConfig);
-            } else {
+            if (changedFiles != null && changedFiles.isEmpty()) {
                 return true;
             }
+            if (differential && changedFiles != null
+                    && downloadChangedFiles(localRepoPath, remoteBaseUrl, remoteConfig, changedFiles)) {
+                return true;
+            }
+            return downloadAndExtractTemplate(localRepoPath, remoteBaseUrl, groupId, artifactId, remoteConfig);
 
         } catch (Exception e) {
             return false;
@@ -171,7 +245,7 @@ public class SDKUtils {
      * @param metaInfo         模板元信息
      * @return 文件是否存在
      */
-    private static boolean isTemplateFileExists(String templateBasePath, MetaInfo metaInfo) {
+    public static boolean isTemplateFileExists(String templateBasePath, MetaInfo metaInfo) {
         String normalizedFilePath = StrUtil.removePrefix(normalizePath(metaInfo.getFilePath()), File.separator);
         String versionPath = metaInfo.getVersion();
 
@@ -185,16 +259,16 @@ public class SDKUtils {
     }
 
     /**
-     * 检查是否需要更新模板
+     * 找出需要更新的模板文件
      *
      * @param localMetaFile 本地meta.json文件
      * @param remoteConfig  远程配置
      * @param localRepoPath 本地仓库路径
      * @param groupId       组ID
      * @param artifactId    项目ID
-     * @return 是否需要更新
+     * @return 本地缺失或SHA256变化的远程文件,为空表示无需更新;本地没有该版本或无法判断时返回null,需整组下载
      */
-    private static boolean checkIfNeedsUpdate(File localMetaFile, RemoteMetaConfig remoteConfig,
+    private static List<RemoteMetaConfig.FileInfo> findChangedFiles(File localMetaFile, RemoteMetaConfig remoteConfig,
             String localRepoPath, String groupId, String artifactId) {
         try {
             LocalMetaConfig localConfig = JSONUtil.toBean(FileUtil.readUtf8String(localMetaFile),
@@ -203,12 +277,13 @@ public class SDKUtils {
 
             LocalMetaConfig.Config matchedConfig = findMatchedConfig(localConfig, remoteVersion);
             if (matchedConfig == null) {
-                return true;
+                return null;
             }
 
             List<RemoteMetaConfig.FileInfo> remoteFiles = remoteConfig.getConfig().getFiles();
+            List<RemoteMetaConfig.FileInfo> changedFiles = new ArrayList<>();
             if (CollUtil.isEmpty(remoteFiles)) {
-                return false;
+                return changedFiles;
             }
 
             List<LocalMetaConfig.FileInfo> localFiles = matchedConfig.getFiles();
@@ -224,18 +299,18 @@ public class SDKUtils {
                         artifactId + File.separator + versionPath + File.separator + normalizedFilePath
                         + File.separator + remoteFile.getFilename();
 
-                if (!new File(actualFilePath).exists()) {
-                    return true;
-                }
-
-                if (isFileShaChanged(localFiles, remoteFile.getFilename(), remoteFile.getFilePath(),
-                        StrUtil.emptyToDefault(remoteFile.getSha256(), ""))) {
-                    return true;
+                // 除比对meta.json记录外,还校验磁盘上的实际内容,发现损坏或被手工修改的模板
+                File actualFile = new File(actualFilePath);
+                if (!actualFile.exists()
+                        || isFileShaChanged(localFiles, remoteFile.getFilename(), remoteFile.getFilePath(),
+                                StrUtil.emptyToDefault(remoteFile.getSha256(), ""))
+                        || !TemplateIntegrityChecker.matches(actualFile.toPath(), remoteFile.getSha256())) {
+                    changedFiles.add(remoteFile);
                 }
             }
-            return false;
+            return changedFiles;
         } catch (Exception e) {
-            return true;
+            return null;
         }
     }
 
@@ -281,8 +356,57 @@ public class SDKUtils {
         return true;
     }
 
+    /**
+     * 差量下载模板
+     * 只请求变化文件的路径,校验通过后覆盖到模板目录并更新meta.json
+     *
+     * @param localRepoPath 本地仓库路径
+     * @param remoteBaseUrl 远程基础URL
+     * @param remoteConfig  远程配置
+     * @param changedFiles  需要更新的文件
+     * @return 是否成功
+     */
+    private static boolean downloadChangedFiles(String localRepoPath, String remoteBaseUrl,
+            RemoteMetaConfig remoteConfig, List<RemoteMetaConfig.FileInfo> changedFiles) {
+        String groupId = remoteConfig.getGroupId();
+        String artifactId = remoteConfig.getArtifactId();
+        String version = remoteConfig.getConfig().getVersion();
+        String templateDir = localRepoPath + File.separator + groupId + File.separator + artifactId;
+
+        List<String> paths = new ArrayList<>(changedFiles.size());
+        for (RemoteMetaConfig.FileInfo file : changedFiles) {
+            String filePath = StrUtil.strip(normalizePath(StrUtil.nullToEmpty(file.getFilePath())), File.separator);
+            paths.add(normalizePath(File.separator + groupId + File.separator + artifactId + File.separator
+                    + version + File.separator + filePath + File.separator + file.getFilename()));
+        }
+
+        try {
+            String backupContent = FileUtil.readUtf8String(new File(templateDir, "meta.json"));
+
+            // 多个路径以逗号分隔传给paths参数
+            try (Response response = RemoteHttpClient.get(remoteBaseUrl + "/api/file/load",
+                    Map.of("paths", String.join(",", paths)))) {
+
+                if (!response.isSuccessful()) {
+                    return false;
+                }
+
+                if (!extractZipStream(response.body().byteStream(), localRepoPath, remoteConfig, changedFiles)) {
+                    return false;
+                }
+            }
+
+            updateLocalMetaJson(localRepoPath, groupId, artifactId, remoteConfig, backupContent);
+            saveDescriptionToReadme(templateDir, remoteConfig);
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
     /**
      * 下载并解压模板
+     * 响应流直接流式解压到暂存目录并按远程SHA256校验,整批通过后才写入模板目录
      *
      * @param localRepoPath 本地仓库路径
      * @param remoteBaseUrl 远程基础URL
@@ -298,7 +422,6 @@ public class SDKUtils {
         String templateDir = localRepoPath + File.separator + groupId + File.separator + artifactId;
         File localMetaFile = new File(templateDir, "meta.json");
         String backupContent = null;
-        File zipFile = null;
 
         try {
             // 备份现有meta.json内容，用于后续版本追加
@@ -306,55 +429,48 @@ public class SDKUtils {
                 backupContent = FileUtil.readUtf8String(localMetaFile);
             }
 
-            HttpResponse response = HttpRequest.get(remoteBaseUrl + "/api/file/load")
-                    .form("paths", templatePath)
-                    .timeout(60000)
-                    .header("User-Agent", "MCP-CodeStyle-Server/1.0")
-                    .execute();
-
-            if (!response.isOk()) {
-                return false;
-            }
+            // 响应体不预先读入内存,由解压过程直接消费
+            try (Response response = RemoteHttpClient.get(remoteBaseUrl + "/api/file/load",
+                    Map.of("paths", templatePath))) {
 
-            zipFile = FileUtil.createTempFile("template-", ".zip", true);
-
-            IoUtil.copy(response.bodyStream(), FileUtil.getOutputStream(zipFile));
+                if (!response.isSuccessful()) {
+                    return false;
+                }
 
-            // 解压到仓库根目录
-            if (extractZipFile(zipFile, localRepoPath, templateDir)) {
-                updateLocalMetaJson(localRepoPath, groupId, artifactId, remoteConfig, backupContent);
-                // 将远程的description写入README.md（缓存到本地）
-                saveDescriptionToReadme(templateDir, remoteConfig);
-                return true;
+                if (!extractZipStream(response.body().byteStream(), localRepoPath, remoteConfig,
+                        remoteConfig.getConfig().getFiles())) {
+                    return false;
+                }
             }
-            return false;
+
+            updateLocalMetaJson(localRepoPath, groupId, artifactId, remoteConfig, backupContent);
+            // 将远程的description写入README.md（缓存到本地）
+            saveDescriptionToReadme(templateDir, remoteConfig);
+            return true;
         } catch (Exception e) {
             return false;
-        } finally {
-            FileUtil.del(zipFile);
         }
     }
 
     /**
-     * 解压ZIP文件
+     * 流式解压ZIP响应并校验SHA256
      *
-     * @param zipFile     ZIP文件
-     * @param targetPath  目标路径
-     * @param templateDir 当前模板目录
+     * @param in            ZIP响应流
+     * @param localRepoPath 本地仓库路径
+     * @param remoteConfig  远程配置
+     * @param expectedFiles 压缩包中必须包含并校验的文件
      * @return 是否成功
      */
-    private static boolean extractZipFile(File zipFile, String targetPath, String templateDir) {
+    private static boolean extractZipStream(InputStream in, String localRepoPath, RemoteMetaConfig remoteConfig,
+            List<RemoteMetaConfig.FileInfo> expectedFiles) {
+        var sample = CodestyleMetrics.start();
         try {
-            File targetDir = FileUtil.mkdir(targetPath);
-            ZipUtil.unzip(zipFile, targetDir);
-            // 仅删除当前模板目录下的meta.json，避免影响其他模板
-            File metaFile = new File(templateDir, "meta.json");
-            if (metaFile.exists()) {
-                FileUtil.del(metaFile);
-            }
+            TemplateArchiveExtractor.extract(in, localRepoPath, remoteConfig, expectedFiles);
             return true;
         } catch (Exception e) {
             return false;
+        } finally {
+            CodestyleMetrics.stopStage(sample, CodestyleMetrics.STAGE_ZIP_EXTRACT);
         }
     }
 
@@ -402,7 +518,19 @@ public class SDKUtils {
         LocalMetaConfig.Config newConfig = MetaInfoConvertUtil.convertRemoteToLocalConfig(remoteConfig);
         configs.add(newConfig);
 
-        FileUtil.writeUtf8String(JSONUtil.toJsonPrettyStr(localConfig), localMetaFile);
+        // 先写临时文件再原子替换,读取方不会看到写了一半的meta.json
+        File tmpFile = new File(localMetaFile.getParentFile(), "meta.json.tmp");
+        FileUtil.writeUtf8String(JSONUtil.toJsonPrettyStr(localConfig), tmpFile);
+        try {
+            try {
+                Files.move(tmpFile.toPath(), localMetaFile.toPath(),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmpFile.toPath(), localMetaFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            throw new IORuntimeException(e);
+        }
     }
 
     /**
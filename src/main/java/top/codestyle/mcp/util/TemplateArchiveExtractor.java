@@ -0,0 +1,275 @@
+package top.codestyle.mcp.util;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.StrUtil;
+import top.codestyle.mcp.model.sdk.RemoteMetaConfig;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * 模板压缩包流式解压工具
+ * 直接从响应流逐条解码ZIP条目写入暂存目录,写入同时计算SHA256并与远程清单比对,清单外的条目直接跳过;
+ * 整批校验通过后在暂存区组装完整的版本目录,再整体替换仓库中的版本目录,校验失败时仓库中的模板目录保持不变
+ *
+ * @author movclantian
+ * @since 2026-10-18
+ */
+public class TemplateArchiveExtractor {
+
+    /**
+     * 暂存目录名,位于仓库根目录下,以点开头以便目录监听和索引重建忽略
+     */
+    public static final String STAGING_DIR = ".staging";
+
+    /**
+     * 替换期间旧版本目录在暂存目录中的名称,以点开头避免与组ID冲突
+     */
+    private static final String PREVIOUS_DIR = ".previous";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private TemplateArchiveExtractor() {
+    }
+
+    /**
+     * 流式解压并校验模板压缩包,校验通过后整体替换仓库中的版本目录
+     * 差量下载时版本目录中未下载的文件以硬链接(不支持时复制)带入新目录,替换后保持不变
+     *
+     * @param in            ZIP响应流
+     * @param localRepoPath 本地仓库路径
+     * @param remoteConfig  远程配置
+     * @param expectedFiles 压缩包中必须包含的文件(含SHA256),差量下载时为变化文件的子集
+     * @return 写入仓库的文件数
+     * @throws IOException 读取失败、条目越界、SHA256校验不通过或版本目录替换失败
+     */
+    public static int extract(InputStream in, String localRepoPath, RemoteMetaConfig remoteConfig,
+            List<RemoteMetaConfig.FileInfo> expectedFiles) throws IOException {
+        if (remoteConfig.getConfig() == null || StrUtil.isBlank(remoteConfig.getConfig().getVersion())) {
+            throw new IOException("远程配置缺少版本信息: " + remoteConfig.getGroupId() + "/"
+                    + remoteConfig.getArtifactId());
+        }
+        Path repoRoot = Path.of(localRepoPath).toAbsolutePath().normalize();
+        Path staging = repoRoot.resolve(STAGING_DIR).resolve(UUID.randomUUID().toString());
+        String versionDir = remoteConfig.getGroupId() + "/" + remoteConfig.getArtifactId() + "/"
+                + remoteConfig.getConfig().getVersion();
+        Files.createDirectories(staging);
+        try {
+            Map<String, String> staged = stage(in, staging, remoteConfig, expectedFiles);
+            Path stagedVersion = staging.resolve(versionDir);
+            Path liveVersion = repoRoot.resolve(versionDir);
+            Files.createDirectories(stagedVersion);
+            carryOverUnchanged(liveVersion, stagedVersion);
+            swap(stagedVersion, liveVersion, staging.resolve(PREVIOUS_DIR));
+            for (var file : staged.entrySet()) {
+                // 写入时已计算摘要,之后的完整性校验无需重新读取
+                TemplateIntegrityChecker.remember(repoRoot.resolve(file.getKey()), file.getValue());
+            }
+            return staged.size();
+        } finally {
+            FileUtil.del(staging);
+            deleteIfEmpty(staging.getParent());
+        }
+    }
+
+    /**
+     * 将压缩包中清单内的条目写入暂存目录并逐个校验,清单外的条目(含压缩包中的meta.json)跳过
+     *
+     * @param in           ZIP响应流
+     * @param staging      暂存目录
+     * @param remoteConfig  远程配置
+     * @param expectedFiles 必须包含的文件
+     * @return 已暂存文件的相对路径(以/分隔) -> SHA256
+     * @throws IOException 读取失败或校验不通过
+     */
+    private static Map<String, String> stage(InputStream in, Path staging, RemoteMetaConfig remoteConfig,
+            List<RemoteMetaConfig.FileInfo> expectedFiles) throws IOException {
+        String scope = remoteConfig.getGroupId() + "/" + remoteConfig.getArtifactId() + "/";
+        Map<String, String> manifest = buildManifest(remoteConfig, expectedFiles);
+        Map<String, String> expected = new HashMap<>(manifest);
+        Map<String, String> staged = new LinkedHashMap<>();
+        MessageDigest digest = newDigest();
+        byte[] buffer = new byte[BUFFER_SIZE];
+
+        try (ZipInputStream zip = new ZipInputStream(in)) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                String name = StrUtil.removePrefix(entry.getName().replace('\\', '/'), "/");
+                if (entry.isDirectory() || name.isEmpty()) {
+                    continue;
+                }
+                // 只接受当前模板组内的条目,并防止../等路径穿越
+                Path target = staging.resolve(name).normalize();
+                String relative = staging.relativize(target).toString().replace('\\', '/');
+                if (!target.startsWith(staging) || !relative.startsWith(scope)) {
+                    throw new IOException("压缩包条目超出模板目录: " + entry.getName());
+                }
+                // 只写入远程清单列出的文件,meta.json由远程配置重新生成
+                if (!manifest.containsKey(relative)) {
+                    continue;
+                }
+
+                Files.createDirectories(target.getParent());
+                digest.reset();
+                try (OutputStream out = Files.newOutputStream(target)) {
+                    int read;
+                    while ((read = zip.read(buffer)) != -1) {
+                        digest.update(buffer, 0, read);
+                        out.write(buffer, 0, read);
+                    }
+                }
+                String actualSha = HexFormat.of().formatHex(digest.digest());
+                String expectedSha = manifest.get(relative);
+                expected.remove(relative);
+                if (TemplateIntegrityChecker.isSha256(expectedSha) && !expectedSha.equalsIgnoreCase(actualSha)) {
+                    throw new IOException("模板文件SHA256校验失败: " + relative);
+                }
+                staged.put(relative, actualSha);
+            }
+        }
+
+        for (var missing : expected.entrySet()) {
+            if (TemplateIntegrityChecker.isSha256(missing.getValue())) {
+                throw new IOException("压缩包缺少模板文件: " + missing.getKey());
+            }
+        }
+        return staged;
+    }
+
+    /**
+     * 构建远程清单: 相对仓库根目录的文件路径 -> SHA256
+     *
+     * @param remoteConfig  远程配置
+     * @param expectedFiles 必须包含的文件
+     * @return 文件清单
+     */
+    private static Map<String, String> buildManifest(RemoteMetaConfig remoteConfig,
+            List<RemoteMetaConfig.FileInfo> expectedFiles) {
+        Map<String, String> manifest = new HashMap<>();
+        if (remoteConfig.getConfig() == null || expectedFiles == null) {
+            return manifest;
+        }
+        String prefix = remoteConfig.getGroupId() + "/" + remoteConfig.getArtifactId() + "/"
+                + remoteConfig.getConfig().getVersion() + "/";
+        for (RemoteMetaConfig.FileInfo file : expectedFiles) {
+            manifest.put(prefix + relativeFilePath(file), file.getSha256());
+        }
+        return manifest;
+    }
+
+    /**
+     * 拼接文件在版本目录下的相对路径
+     *
+     * @param file 远程文件信息
+     * @return 以/分隔的相对路径
+     */
+    private static String relativeFilePath(RemoteMetaConfig.FileInfo file) {
+        String dir = StrUtil.strip(StrUtil.nullToEmpty(file.getFilePath()).replace('\\', '/'), "/");
+        while (dir.contains("//")) {
+            dir = dir.replace("//", "/");
+        }
+        return dir.isEmpty() ? file.getFilename() : dir + "/" + file.getFilename();
+    }
+
+    /**
+     * 将仓库版本目录中未重新下载的文件带入暂存的版本目录,优先硬链接避免复制内容
+     *
+     * @param liveVersion   仓库中的版本目录
+     * @param stagedVersion 暂存的版本目录
+     * @throws IOException 链接或复制失败
+     */
+    private static void carryOverUnchanged(Path liveVersion, Path stagedVersion) throws IOException {
+        if (!Files.isDirectory(liveVersion)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(liveVersion)) {
+            for (Path source : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                Path target = stagedVersion.resolve(liveVersion.relativize(source).toString());
+                if (Files.exists(target)) {
+                    continue;
+                }
+                Files.createDirectories(target.getParent());
+                try {
+                    Files.createLink(target, source);
+                } catch (IOException | UnsupportedOperationException e) {
+                    Files.copy(source, target, StandardCopyOption.COPY_ATTRIBUTES);
+                }
+            }
+        }
+    }
+
+    /**
+     * 用暂存的版本目录替换仓库中的版本目录
+     * 旧目录先移入暂存目录,新目录移动失败时移回,仓库中不会留下只更新了部分文件的版本目录
+     *
+     * @param stagedVersion 暂存的完整版本目录
+     * @param liveVersion   仓库中的版本目录
+     * @param previous      旧版本目录的暂存位置,随暂存目录一起删除
+     * @throws IOException 移动失败
+     */
+    private static void swap(Path stagedVersion, Path liveVersion, Path previous) throws IOException {
+        Files.createDirectories(liveVersion.getParent());
+        if (!Files.exists(liveVersion)) {
+            moveDirectory(stagedVersion, liveVersion);
+            return;
+        }
+        moveDirectory(liveVersion, previous);
+        try {
+            moveDirectory(stagedVersion, liveVersion);
+        } catch (IOException e) {
+            moveDirectory(previous, liveVersion);
+            throw e;
+        }
+    }
+
+    /**
+     * 移动目录,同一文件系统下为原子重命名
+     *
+     * @param source 源目录
+     * @param target 目标路径,不能已存在
+     * @throws IOException 移动失败
+     */
+    private static void moveDirectory(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target);
+        }
+    }
+
+    /**
+     * 删除空的暂存根目录,其他下载仍在使用时保留
+     *
+     * @param dir 暂存根目录
+     */
+    private static void deleteIfEmpty(Path dir) {
+        try {
+            Files.deleteIfExists(dir);
+        } catch (IOException ignored) {
+            // 目录非空
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
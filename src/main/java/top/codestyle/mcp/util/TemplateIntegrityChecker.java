@@ -0,0 +1,348 @@
+package top.codestyle.mcp.util;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.json.JSONUtil;
+import top.codestyle.mcp.cache.CacheStats;
+import top.codestyle.mcp.cache.LocalCache;
+import top.codestyle.mcp.metrics.CodestyleMetrics;
+import top.codestyle.mcp.model.meta.LocalMetaConfig;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * 模板文件完整性校验工具
+ * 用NIO按块计算磁盘上模板文件的SHA256并与meta.json中的记录比对,可发现被损坏或手工修改的模板。
+ * 摘要按(路径,大小,修改时间)缓存,文件未变化时重复校验只需一次stat;整库校验按文件并行
+ *
+ * @author movclantian
+ * @since 2026-10-18
+ */
+public final class TemplateIntegrityChecker {
+
+    private static final Pattern SHA256_PATTERN = Pattern.compile("[0-9a-fA-F]{64}");
+    private static final int MAX_CACHED_DIGESTS = 65536;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final ThreadLocal<ByteBuffer> BUFFERS =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(BUFFER_SIZE));
+    private static final LocalCache<String, FileDigest> DIGESTS = new LocalCache<>(MAX_CACHED_DIGESTS, 0);
+
+    static {
+        CodestyleMetrics.cache("digest", DIGESTS, LocalCache::stats);
+    }
+
+    private TemplateIntegrityChecker() {
+    }
+
+    /**
+     * 是否为有效的SHA256十六进制摘要,meta.json中的"待计算"等占位值无法用于校验
+     *
+     * @param sha256 摘要字符串
+     * @return 是否有效
+     */
+    public static boolean isSha256(String sha256) {
+        return sha256 != null && SHA256_PATTERN.matcher(sha256).matches();
+    }
+
+    /**
+     * 校验文件内容是否与期望的SHA256一致
+     *
+     * @param file           文件
+     * @param expectedSha256 期望的SHA256,不是有效摘要时视为一致
+     * @return 是否一致,文件不存在或读取失败返回false
+     */
+    public static boolean matches(Path file, String expectedSha256) {
+        if (!isSha256(expectedSha256)) {
+            return true;
+        }
+        try {
+            return expectedSha256.equalsIgnoreCase(sha256(file));
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 计算文件SHA256,文件大小和修改时间未变化时直接返回缓存的摘要
+     *
+     * @param file 文件
+     * @return 小写十六进制摘要
+     * @throws IOException 文件不存在或读取失败
+     */
+    public static String sha256(Path file) throws IOException {
+        return digest(file, null);
+    }
+
+    /**
+     * 记录已知的文件摘要,如刚校验并写入的下载文件,之后的校验无需重新读取内容
+     *
+     * @param file   文件
+     * @param sha256 文件内容的SHA256
+     */
+    public static void remember(Path file, String sha256) {
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+            DIGESTS.put(key(file), new FileDigest(attrs.size(), attrs.lastModifiedTime().to(TimeUnit.NANOSECONDS),
+                    sha256.toLowerCase()));
+        } catch (IOException ignored) {
+            // 文件已被移走,下次校验时重新计算
+        }
+    }
+
+    /**
+     * 获取摘要缓存统计
+     *
+     * @return 缓存统计
+     */
+    public static CacheStats getDigestCacheStats() {
+        return DIGESTS.stats();
+    }
+
+    /**
+     * 并行校验整个仓库
+     * 遍历所有groupId/artifactId/meta.json,校验各版本中记录了有效SHA256的模板文件
+     *
+     * @param repositoryDir 仓库目录
+     * @param threads       并行线程数
+     * @return 校验报告
+     * @throws IOException 仓库目录不可读
+     */
+    public static VerifyReport verifyRepository(Path repositoryDir, int threads) throws IOException {
+        long startAt = System.nanoTime();
+        List<Target> targets = collectTargets(repositoryDir);
+
+        List<String> missing = Collections.synchronizedList(new ArrayList<>());
+        List<String> corrupted = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger verified = new AtomicInteger();
+        AtomicInteger skipped = new AtomicInteger();
+        LongAdder bytes = new LongAdder();
+        LongAdder hashedBytes = new LongAdder();
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            var thread = new Thread(r, "template-verify");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> futures = new ArrayList<>(targets.size());
+            for (Target target : targets) {
+                futures.add(pool.submit(() -> {
+                    if (!isSha256(target.sha256())) {
+                        skipped.incrementAndGet();
+                        return;
+                    }
+                    try {
+                        String actual = digest(target.file(), hashedBytes);
+                        bytes.add(Files.size(target.file()));
+                        if (target.sha256().equalsIgnoreCase(actual)) {
+                            verified.incrementAndGet();
+                        } else {
+                            corrupted.add(target.relativePath());
+                        }
+                    } catch (NoSuchFileException e) {
+                        missing.add(target.relativePath());
+                    } catch (IOException e) {
+                        corrupted.add(target.relativePath());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("仓库校验被中断", e);
+        } catch (ExecutionException e) {
+            throw new IOException("仓库校验失败", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        Collections.sort(missing);
+        Collections.sort(corrupted);
+        return new VerifyReport(targets.size(), verified.get(), skipped.get(), missing, corrupted,
+                bytes.sum(), hashedBytes.sum(), System.nanoTime() - startAt);
+    }
+
+    /**
+     * 计算或从缓存获取文件摘要
+     *
+     * @param file        文件
+     * @param hashedBytes 实际读取的字节数累加器,可为null
+     * @return 小写十六进制摘要
+     * @throws IOException 文件不存在或读取失败
+     */
+    private static String digest(Path file, LongAdder hashedBytes) throws IOException {
+        BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        long size = attrs.size();
+        long mtime = attrs.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+        String key = key(file);
+        FileDigest cached = DIGESTS.get(key, d -> d.size() == size && d.mtimeNanos() == mtime);
+        if (cached != null) {
+            return cached.sha256();
+        }
+
+        MessageDigest digest = newDigest();
+        ByteBuffer buffer = BUFFERS.get();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer.clear();
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        if (hashedBytes != null) {
+            hashedBytes.add(size);
+        }
+        String sha256 = HexFormat.of().formatHex(digest.digest());
+        DIGESTS.put(key, new FileDigest(size, mtime, sha256));
+        return sha256;
+    }
+
+    /**
+     * 收集仓库中所有需要校验的模板文件
+     *
+     * @param repositoryDir 仓库目录
+     * @return 待校验文件
+     * @throws IOException 仓库目录不可读
+     */
+    private static List<Target> collectTargets(Path repositoryDir) throws IOException {
+        List<Target> targets = new ArrayList<>();
+        File[] groupDirs = repositoryDir.toFile().listFiles(File::isDirectory);
+        if (groupDirs == null) {
+            throw new IOException("仓库目录不存在: " + repositoryDir);
+        }
+        for (File groupDir : groupDirs) {
+            // 跳过lucene-index和.staging等非模板目录
+            if (groupDir.getName().startsWith(".") || "lucene-index".equals(groupDir.getName())) {
+                continue;
+            }
+            File[] artifactDirs = groupDir.listFiles(File::isDirectory);
+            if (artifactDirs == null) {
+                continue;
+            }
+            for (File artifactDir : artifactDirs) {
+                File metaFile = new File(artifactDir, "meta.json");
+                if (metaFile.isFile()) {
+                    collectTargets(repositoryDir, artifactDir.toPath(), metaFile, targets);
+                }
+            }
+        }
+        return targets;
+    }
+
+    private static void collectTargets(Path repositoryDir, Path artifactDir, File metaFile, List<Target> targets) {
+        LocalMetaConfig meta;
+        try {
+            meta = JSONUtil.toBean(FileUtil.readUtf8String(metaFile), LocalMetaConfig.class);
+        } catch (Exception e) {
+            return;
+        }
+        if (meta.getConfigs() == null) {
+            return;
+        }
+        for (LocalMetaConfig.Config config : meta.getConfigs()) {
+            if (config.getFiles() == null) {
+                continue;
+            }
+            for (LocalMetaConfig.FileInfo info : config.getFiles()) {
+                String dir = StrUtil.strip(StrUtil.nullToEmpty(info.getFilePath()).replace('\\', '/'), "/");
+                Path file = artifactDir.resolve(config.getVersion()).resolve(dir).resolve(info.getFilename());
+                String relative = repositoryDir.relativize(file).toString().replace('\\', '/');
+                targets.add(new Target(file, relative, info.getSha256()));
+            }
+        }
+    }
+
+    private static String key(Path file) {
+        return file.toAbsolutePath().normalize().toString();
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 缓存的文件摘要
+     *
+     * @param size        文件大小
+     * @param mtimeNanos  修改时间(纳秒)
+     * @param sha256      小写十六进制摘要
+     */
+    private record FileDigest(long size, long mtimeNanos, String sha256) {
+    }
+
+    /**
+     * 待校验文件
+     *
+     * @param file         文件绝对路径
+     * @param relativePath 相对仓库目录的路径
+     * @param sha256       meta.json中记录的摘要
+     */
+    private record Target(Path file, String relativePath, String sha256) {
+    }
+
+    /**
+     * 仓库校验报告
+     *
+     * @param files       meta.json中登记的文件总数
+     * @param verified    校验通过的文件数
+     * @param skipped     未记录有效SHA256而跳过的文件数
+     * @param missing     缺失的文件
+     * @param corrupted   内容与SHA256不一致或无法读取的文件
+     * @param bytes       已校验文件的总字节数
+     * @param hashedBytes 实际读取计算的字节数,其余命中摘要缓存
+     * @param elapsedNanos 耗时(纳秒)
+     */
+    public record VerifyReport(int files, int verified, int skipped, List<String> missing, List<String> corrupted,
+                               long bytes, long hashedBytes, long elapsedNanos) {
+
+        /**
+         * 是否全部通过(跳过的文件不计为失败)
+         */
+        public boolean isClean() {
+            return missing.isEmpty() && corrupted.isEmpty();
+        }
+
+        /**
+         * 校验吞吐量(MB/s),按已校验文件的总字节数计算
+         */
+        public double megabytesPerSecond() {
+            return elapsedNanos == 0 ? 0 : bytes / 1048576.0 / (elapsedNanos / 1e9);
+        }
+
+        /**
+         * 校验吞吐量(文件/s)
+         */
+        public double filesPerSecond() {
+            return elapsedNanos == 0 ? 0 : (files - skipped) / (elapsedNanos / 1e9);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package top.codestyle.mcp.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 本地LRU缓存测试
+ *
+ * @author movclantian
+ * @since 2026-10-18
+ */
+class LocalCacheTest {
+
+    @Test
+    void expiresEntriesAfterTtl() throws InterruptedException {
+        var cache = new LocalCache<String, String>(10, 50);
+        cache.put("a", "1");
+        assertEquals("1", cache.get("a"));
+
+        Thread.sleep(100);
+        assertNull(cache.get("a"));
+        assertTrue(cache.snapshot().isEmpty());
+        assertEquals(new CacheStats(1, 1, 0, 0, 0), cache.stats());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedByWeight() {
+        var cache = new LocalCache<String, String>(10, 0, String::length);
+        cache.put("a", "aaaa");
+        cache.put("b", "bbbb");
+        assertEquals("aaaa", cache.get("a"));
+
+        // 总权重超过上限,淘汰最久未使用的b
+        cache.put("c", "cccc");
+        assertEquals(List.of("a", "c"), List.copyOf(cache.snapshot().keySet()));
+        assertNull(cache.get("b"));
+        var stats = cache.stats();
+        assertEquals(1, stats.evictions());
+        assertEquals(2, stats.size());
+        assertEquals(8, stats.weightedSize());
+    }
+
+    @Test
+    void evictsByEntryCount() {
+        var cache = new LocalCache<String, String>(2, 0);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.put("c", "3");
+
+        assertEquals(List.of("b", "c"), List.copyOf(cache.snapshot().keySet()));
+        assertEquals(1, cache.stats().evictions());
+    }
+
+    @Test
+    void countsFailedValidationAsMissAndDropsEntry() {
+        var cache = new LocalCache<String, Integer>(10, 0);
+        cache.put("a", 1);
+
+        assertNull(cache.get("a", value -> value > 1));
+        assertNull(cache.get("a"));
+        cache.put("a", 2);
+        assertEquals(2, cache.get("a", value -> value > 1));
+
+        var stats = cache.stats();
+        assertEquals(1, stats.hits());
+        assertEquals(2, stats.misses());
+        assertEquals(1.0 / 3, stats.hitRate(), 1e-9);
+        assertEquals(0, stats.evictions());
+    }
+}
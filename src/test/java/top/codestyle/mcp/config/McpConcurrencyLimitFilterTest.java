@@ -0,0 +1,92 @@
+package top.codestyle.mcp.config;
+
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * MCP消息并发限制过滤器测试
+ *
+ * @author movclantian
+ * @since 2026-10-18
+ */
+class McpConcurrencyLimitFilterTest {
+
+    @Test
+    void rejectsWhenSessionLimitReachedAndFreesSlotAfterwards() throws Exception {
+        var filter = new McpConcurrencyLimitFilter(8, 1, 0);
+        var entered = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        FilterChain blocking = (req, res) -> {
+            entered.countDown();
+            await(release);
+        };
+
+        CompletableFuture<MockHttpServletResponse> first = CompletableFuture.supplyAsync(
+                () -> call(filter, post("s1"), blocking));
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+        MockHttpServletResponse rejected = call(filter, post("s1"), (req, res) -> fail("不应进入"));
+        assertEquals(503, rejected.getStatus());
+        assertEquals("1", rejected.getHeader("Retry-After"));
+        assertEquals(200, call(filter, post("s2"), (req, res) -> { }).getStatus());
+
+        release.countDown();
+        assertEquals(200, first.get(5, TimeUnit.SECONDS).getStatus());
+        assertEquals(200, call(filter, post("s1"), (req, res) -> { }).getStatus());
+    }
+
+    @Test
+    void rejectsAfterQueueTimeoutButNeverLimitsEventStreams() throws Exception {
+        var filter = new McpConcurrencyLimitFilter(1, 8, 50);
+        var entered = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        CompletableFuture<MockHttpServletResponse> first = CompletableFuture.supplyAsync(
+                () -> call(filter, post(null), (req, res) -> {
+                    entered.countDown();
+                    await(release);
+                }));
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+        assertEquals(503, call(filter, post(null), (req, res) -> fail("不应进入")).getStatus());
+        var stream = new MockHttpServletRequest("GET", "/mcp");
+        assertEquals(200, call(filter, stream, (req, res) -> { }).getStatus());
+
+        release.countDown();
+        assertEquals(200, first.get(5, TimeUnit.SECONDS).getStatus());
+    }
+
+    private static MockHttpServletRequest post(String session) {
+        var request = new MockHttpServletRequest("POST", "/mcp");
+        if (session != null) {
+            request.addHeader(McpConcurrencyLimitFilter.SESSION_HEADER, session);
+        }
+        return request;
+    }
+
+    private static MockHttpServletResponse call(McpConcurrencyLimitFilter filter, MockHttpServletRequest request,
+                                                FilterChain chain) {
+        var response = new MockHttpServletResponse();
+        try {
+            filter.doFilter(request, response, chain);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return response;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package top.codestyle.mcp.config;
+
+import io.modelcontextprotocol.json.TypeRef;
+import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpServerSession;
+import io.modelcontextprotocol.spec.McpServerTransport;
+import io.modelcontextprotocol.spec.McpServerTransportProvider;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * MCP传输层配置测试,并发返回的响应在stdout上不能交错
+ *
+ * @author movclantian
+ * @since 2026-10-18
+ */
+class McpTransportConfigTest {
+
+    @Test
+    void concurrentResponsesAreNotInterleaved() throws Exception {
+        var stdout = new StdoutTransport();
+        var stdio = new StdioProvider();
+        var provider = new McpTransportConfig.SerializedTransportProvider(stdio);
+        var session = new AtomicReference<McpServerTransport>();
+        provider.setSessionFactory(transport -> {
+            session.set(transport);
+            return null;
+        });
+        stdio.factory.create(stdout);
+
+        int threads = 8;
+        int perThread = 50;
+        var start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> sends = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int base = t * perThread;
+                sends.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < perThread; i++) {
+                        session.get().sendMessage(new McpSchema.JSONRPCResponse(McpSchema.JSONRPC_VERSION,
+                                base + i, Map.of(), null)).block();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> send : sends)
+                send.get(30, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+            provider.close();
+        }
+
+        assertEquals(1, stdout.maxWriters.get());
+        Set<String> expected = new HashSet<>();
+        for (int i = 0; i < threads * perThread; i++)
+            expected.add(StdoutTransport.line(i));
+        List<String> lines = Arrays.asList(stdout.out.toString().split("\n"));
+        assertEquals(threads * perThread, lines.size());
+        assertEquals(expected, new HashSet<>(lines));
+    }
+
+    /**
+     * 记录会话工厂的stdio传输提供者
+     */
+    private static class StdioProvider implements McpServerTransportProvider {
+
+        McpServerSession.Factory factory;
+
+        @Override
+        public void setSessionFactory(McpServerSession.Factory sessionFactory) {
+            this.factory = sessionFactory;
+        }
+
+        @Override
+        public Mono<Void> notifyClients(String method, Object params) {
+            return Mono.empty();
+        }
+
+        @Override
+        public Mono<Void> closeGracefully() {
+            return Mono.empty();
+        }
+    }
+
+    /**
+     * 逐字符写入非线程安全缓冲区的传输,并发写入时输出会交错
+     */
+    private static class StdoutTransport implements McpServerTransport {
+
+        final StringBuilder out = new StringBuilder();
+        final AtomicInteger writers = new AtomicInteger();
+        final AtomicInteger maxWriters = new AtomicInteger();
+
+        static String line(Object id) {
+            return "{\"jsonrpc\":\"2.0\",\"id\":" + id + ",\"result\":{}}";
+        }
+
+        @Override
+        public Mono<Void> sendMessage(McpSchema.JSONRPCMessage message) {
+            return Mono.fromRunnable(() -> {
+                maxWriters.accumulateAndGet(writers.incrementAndGet(), Math::max);
+                for (char c : line(((McpSchema.JSONRPCResponse) message).id()).toCharArray()) {
+                    out.append(c);
+                    Thread.yield();
+                }
+                out.append('\n');
+                writers.decrementAndGet();
+            });
+        }
+
+        @Override
+        public <T> T unmarshalFrom(Object data, TypeRef<T> typeRef) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Mono<Void> closeGracefully() {
+            return Mono.empty();
+        }
+    }
+}
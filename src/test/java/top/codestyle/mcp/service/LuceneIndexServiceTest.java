@@ -0,0 +1,298 @@
+package top.codestyle.mcp.service;
+
+import cn.hutool.core.io.FileUtil;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.SegmentInfos;
+import org.apache.lucene.store.FSDirectory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import top.codestyle.mcp.config.RepositoryConfigStub;
+import top.codestyle.mcp.metrics.CodestyleMetrics;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Lucene索引服务测试
+ *
+ * @author movclantian
+ * @since 2026-10-18
+ */
+class LuceneIndexServiceTest {
+
+    @TempDir
+    Path repoDir;
+
+    private FailingConfig config;
+    private LuceneIndexService service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        writeTemplate("g1", "alpha", "alpha 增删改查模板");
+        config = new FailingConfig(repoDir.toString());
+        service = new LuceneIndexService(config);
+        service.init();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        service.destroy();
+    }
+
+    @Test
+    void reusesSearcherUntilIndexChanges() throws IOException {
+        assertNotNull(service.fetchLocalMetaConfig("alpha"));
+        long generation = service.getIndexGeneration();
+        assertNull(service.fetchLocalMetaConfig("beta"));
+        assertEquals(generation, service.getIndexGeneration());
+
+        // 更新先进入待提交队列,检索继续使用原搜索器
+        service.updateIndex("g2", "beta", "beta 表单模板", repoDir.resolve("g2/beta/meta.json").toString());
+        assertNull(service.fetchLocalMetaConfig("beta"));
+        assertEquals(generation, service.getIndexGeneration());
+
+        service.commitPendingUpserts();
+        assertEquals(generation + 1, service.getIndexGeneration());
+        assertEquals("beta", service.fetchLocalMetaConfig("beta").artifactId());
+        assertEquals(2, service.getIndexDocCount());
+    }
+
+    @Test
+    void queuedUpdatesShareOneCommit() throws IOException {
+        long commit = lastCommitGeneration();
+        long generation = service.getIndexGeneration();
+        for (int i = 0; i < 20; i++)
+            service.updateIndex("g2", "beta" + i, "beta 表单模板", metaPath("g2", "beta" + i));
+        // 同一模板的多次更新只保留最后一次
+        service.updateIndex("g2", "beta0", "gamma 新描述", metaPath("g2", "beta0"));
+        service.commitPendingUpserts();
+
+        assertEquals(commit + 1, lastCommitGeneration());
+        assertEquals(generation + 1, service.getIndexGeneration());
+        assertEquals(21, service.getIndexDocCount());
+        assertEquals("beta0", service.fetchLocalMetaConfig("gamma").artifactId());
+    }
+
+    @Test
+    void reconcileReindexesOnlyChangedTemplates() throws IOException {
+        writeTemplate("g1", "beta", "beta 表单模板");
+        writeTemplate("g1", "gamma", "gamma 图表模板");
+        writeTemplate("g1", "delta", "delta 报表模板");
+        service.rebuildIndex();
+        assertEquals(4, service.getIndexDocCount());
+
+        writeTemplate("g1", "alpha", "alpha 增删改查模板 已修改");
+        writeTemplate("g2", "epsilon", "epsilon 导入模板");
+        FileUtil.del(repoDir.resolve("g1/gamma"));
+        FileUtil.writeUtf8String("{broken", metaPath("g1", "delta"));
+        service.reconcileIndex();
+
+        var stats = service.getLastBuildStats();
+        assertTrue(stats.incremental());
+        assertEquals(4, stats.scanned());
+        assertEquals(2, stats.indexed());
+        assertEquals(2, stats.deleted());
+        assertEquals(3, service.getIndexDocCount());
+        assertTrue(service.fetchLocalMetaConfig("alpha").description().contains("已修改"));
+        assertEquals("epsilon", service.fetchLocalMetaConfig("epsilon").artifactId());
+        assertNull(service.fetchLocalMetaConfig("gamma"));
+        // 无法解析的模板不能继续以旧元数据出现在检索结果中
+        assertNull(service.fetchLocalMetaConfig("delta"));
+    }
+
+    @Test
+    void schemaVersionMismatchForcesFullRebuild() throws IOException {
+        service.destroy();
+        service = new LuceneIndexService(config);
+        service.init();
+        assertTrue(service.getLastBuildStats().incremental());
+        assertEquals(0, service.getLastBuildStats().indexed());
+
+        service.destroy();
+        try (var dir = FSDirectory.open(repoDir.resolve(LuceneIndexService.INDEX_DIR));
+             var writer = new IndexWriter(dir, new IndexWriterConfig())) {
+            writer.setLiveCommitData(Map.of("schemaVersion", "0").entrySet());
+            writer.commit();
+        }
+        service = new LuceneIndexService(config);
+        service.init();
+        assertFalse(service.getLastBuildStats().incremental());
+        assertEquals(1, service.getLastBuildStats().indexed());
+        assertNotNull(service.fetchLocalMetaConfig("alpha"));
+    }
+
+    @Test
+    void failedRebuildKeepsCommittedIndex() throws IOException {
+        assertNotNull(service.fetchLocalMetaConfig("alpha"));
+
+        config.failScan = true;
+        assertThrows(IllegalStateException.class, service::rebuildIndex);
+        // 构建失败后的提交不能落盘deleteAll和不完整的构建结果
+        service.updateIndex("g2", "beta", "beta 表单模板", repoDir.resolve("g2/beta/meta.json").toString());
+        service.commitPendingUpserts();
+
+        assertEquals(2, service.getIndexDocCount());
+        assertNotNull(service.fetchLocalMetaConfig("alpha"));
+        assertNotNull(service.fetchLocalMetaConfig("beta"));
+
+        config.failScan = false;
+        service.rebuildIndex();
+        assertEquals(1, service.getIndexDocCount());
+    }
+
+    @Test
+    void pagesWithCursorAndRejectsStaleOrMalformedCursor() throws IOException {
+        for (int i = 0; i < 4; i++)
+            writeTemplate("g1", "crud" + i, "crud 增删改查 " + "模板 ".repeat(i + 1));
+        service.rebuildIndex();
+
+        var first = service.searchTopK("crud", 2, null, null);
+        assertEquals(2, first.hits().size());
+        assertEquals(4, first.totalHits());
+        var second = service.searchTopK("crud", 2, first.nextCursor(), null);
+        assertEquals(3, second.start());
+        assertEquals(2, second.hits().size());
+        assertNull(second.nextCursor());
+        assertTrue(second.hits().stream().noneMatch(first.hits()::contains));
+
+        var e = assertThrows(IllegalArgumentException.class,
+                () -> service.searchTopK("crud", 2, "not-a-cursor", null));
+        assertTrue(e.getMessage().contains("格式错误"));
+
+        // 索引刷新后文档号可能变化,旧游标必须被拒绝
+        service.updateIndex("g1", "crud9", "crud 新模板", repoDir.resolve("g1/crud9/meta.json").toString());
+        service.commitPendingUpserts();
+        e = assertThrows(IllegalArgumentException.class,
+                () -> service.searchTopK("crud", 2, first.nextCursor(), null));
+        assertTrue(e.getMessage().contains("失效"));
+    }
+
+    @Test
+    void totalHitsHonoursMinScore() throws IOException {
+        for (int i = 0; i < 4; i++)
+            writeTemplate("g1", "form" + i, i == 0 ? "form form form form" : "form " + "其他内容 ".repeat(20));
+        service.rebuildIndex();
+
+        var all = service.searchTopK("form", 10, null, null);
+        float best = all.hits().get(0).score();
+        var truncated = service.searchTopK("form", 10, null, best);
+        assertEquals(truncated.hits().size(), truncated.totalHits());
+        assertTrue(truncated.totalHits() < all.totalHits());
+    }
+
+    @Test
+    void answersWarmingUntilBackgroundBuildFinishes(@TempDir Path warmDir) throws Exception {
+        writeTemplate(warmDir, "g1", "alpha", "alpha 增删改查模板");
+        var warmConfig = new WarmupConfig(warmDir.toString());
+        var index = new LuceneIndexService(warmConfig);
+        var codestyle = new CodestyleService(warmConfig,
+                new TemplateService(warmConfig, index, new TemplateCatalogService(warmConfig),
+                        new TemplateContentService(warmConfig), new RemoteSearchCacheService(warmConfig)),
+                new PromptService(), index);
+        try {
+            // 启动不等待构建,构建结束前检索最多等待warmup-wait-ms后返回提示
+            index.init();
+            assertFalse(index.isReady());
+            var warming = codestyle.searchLocal("alpha");
+            assertEquals(CodestyleMetrics.OUTCOME_WARMING, warming.outcome());
+            assertTrue(warming.text().contains("正在构建"));
+            assertEquals(CodestyleMetrics.OUTCOME_WARMING, codestyle.rankedSearch("alpha", 5, null, null).outcome());
+
+            warmConfig.buildGate.countDown();
+            assertTrue(index.awaitReady(10_000));
+            var ranked = codestyle.rankedSearch("alpha", 5, null, null);
+            assertEquals(CodestyleMetrics.OUTCOME_SUCCESS, ranked.outcome());
+            assertTrue(ranked.text().contains("g1/alpha"));
+        } finally {
+            warmConfig.buildGate.countDown();
+            index.destroy();
+        }
+    }
+
+    private String metaPath(String groupId, String artifactId) {
+        return repoDir.resolve(groupId).resolve(artifactId).resolve("meta.json").toString();
+    }
+
+    private long lastCommitGeneration() throws IOException {
+        try (var dir = FSDirectory.open(repoDir.resolve(LuceneIndexService.INDEX_DIR))) {
+            return SegmentInfos.readLatestCommit(dir).getGeneration();
+        }
+    }
+
+    private void writeTemplate(String groupId, String artifactId, String readme) {
+        writeTemplate(repoDir, groupId, artifactId, readme);
+    }
+
+    private static void writeTemplate(Path root, String groupId, String artifactId, String readme) {
+        var artifactDir = root.resolve(groupId).resolve(artifactId).toFile();
+        FileUtil.writeUtf8String("""
+                {"groupId":"%s","artifactId":"%s","configs":[{"version":"1.0","files":[]}]}
+                """.formatted(groupId, artifactId), FileUtil.file(artifactDir, "meta.json"));
+        FileUtil.writeUtf8String(readme, FileUtil.file(artifactDir, "1.0/README.md"));
+    }
+
+    /**
+     * 扫描仓库时按需抛出异常,模拟构建中途失败
+     */
+    private static class FailingConfig extends RepositoryConfigStub {
+
+        volatile boolean failScan;
+
+        FailingConfig(String repoDir) {
+            super(false, repoDir, null);
+        }
+
+        @Override
+        public int getIndexParallelism() {
+            if (failScan)
+                throw new IllegalStateException("scan failed");
+            return 1;
+        }
+
+        /* 由测试显式提交,定时提交不参与 */
+        @Override
+        public long getIndexCommitIntervalMs() {
+            return 60_000;
+        }
+    }
+
+    /**
+     * 后台构建索引,扫描仓库时等待测试放行
+     */
+    private static class WarmupConfig extends RepositoryConfigStub {
+
+        final CountDownLatch buildGate = new CountDownLatch(1);
+
+        WarmupConfig(String repoDir) {
+            super(false, repoDir, null);
+        }
+
+        @Override
+        public boolean isIndexBackgroundWarmup() {
+            return true;
+        }
+
+        @Override
+        public long getIndexWarmupWaitMs() {
+            return 50;
+        }
+
+        @Override
+        public int getIndexParallelism() {
+            try {
+                buildGate.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return 1;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package top.codestyle.mcp.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import top.codestyle.mcp.config.RepositoryConfigStub;
+import top.codestyle.mcp.model.sdk.RemoteMetaConfig;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 远程检索缓存测试,使用本地JDK HttpServer模拟支持ETag的远程检索接口
+ *
+ * @author movclantian
+ * @since 2026-10-18
+ */
+class RemoteSearchCacheServiceTest {
+
+    private static final String ETAG = "\"v1\"";
+
+    @TempDir
+    Path repoDir;
+
+    private HttpServer server;
+    private String baseUrl;
+    private final List<String> ifNoneMatch = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/api/mcp/search", this::search);
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void servesWithinTtlWithoutRemoteCall() {
+        var service = new RemoteSearchCacheService(new CacheConfig(300, 0));
+
+        assertEquals("CRUD", service.fetch("CRUD").getArtifactId());
+        assertEquals("CRUD", service.fetch(" CRUD ").getArtifactId());
+        assertEquals(1, ifNoneMatch.size());
+        assertEquals(1, service.getRemoteSearchCacheStats().hits());
+    }
+
+    @Test
+    void revalidatesExpiredEntryWithEtag() {
+        var service = new RemoteSearchCacheService(new CacheConfig(0, 0));
+
+        RemoteMetaConfig first = service.fetch("CRUD");
+        RemoteMetaConfig renewed = service.fetch("CRUD");
+
+        assertEquals(List.of("", ETAG), ifNoneMatch);
+        assertSame(first, renewed);
+        assertEquals(1, service.getRemoteSearchCacheStats().hits());
+    }
+
+    @Test
+    void fallsBackToStaleEntryWhenRemoteDown() {
+        var service = new RemoteSearchCacheService(new CacheConfig(0, 0));
+        assertNotNull(service.fetch("CRUD"));
+
+        server.stop(0);
+        assertEquals("CRUD", service.fetch("CRUD").getArtifactId());
+        assertNull(service.fetch("other"));
+    }
+
+    @Test
+    void returnsNullForBlankKeywordWithoutRemoteCall() {
+        var service = new RemoteSearchCacheService(new CacheConfig(300, 0));
+
+        assertNull(service.fetch(null));
+        assertNull(service.fetch("  "));
+        assertNull(service.fetchAsync(null).join());
+        assertNull(service.fetchAsync("").join());
+        assertTrue(ifNoneMatch.isEmpty());
+        assertEquals(0, service.getRemoteSearchCacheStats().misses());
+    }
+
+    @Test
+    void reloadsPersistedEntriesAfterRestart() throws IOException {
+        var service = new RemoteSearchCacheService(new CacheConfig(300, 60_000));
+        service.fetch("CRUD");
+        // 延迟写入尚未到期,关闭时写入
+        Path file = repoDir.resolve(RemoteSearchCacheService.PERSIST_FILE);
+        assertFalse(Files.exists(file));
+        service.shutdown();
+        assertTrue(Files.exists(file));
+
+        var restarted = new RemoteSearchCacheService(new CacheConfig(300, 0));
+        assertEquals("CRUD", restarted.fetch("CRUD").getArtifactId());
+        assertEquals(1, ifNoneMatch.size());
+    }
+
+    private void search(HttpExchange exchange) throws IOException {
+        String etag = exchange.getRequestHeaders().getFirst("If-None-Match");
+        ifNoneMatch.add(etag != null ? etag : "");
+        if (ETAG.equals(etag)) {
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+        byte[] body = """
+                {"groupId":"backend","artifactId":"CRUD","description":"增删改查",
+                 "config":{"version":"1.0.0","files":[]}}
+                """.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("ETag", ETAG);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * 可调整有效期和延迟持久化时间的远程检索配置
+     */
+    private class CacheConfig extends RepositoryConfigStub {
+
+        private final long ttlSeconds;
+        private final long persistDelayMs;
+
+        CacheConfig(long ttlSeconds, long persistDelayMs) {
+            super(true, repoDir.toString(), baseUrl);
+            this.ttlSeconds = ttlSeconds;
+            this.persistDelayMs = persistDelayMs;
+        }
+
+        @Override
+        public long getRemoteCacheTtlSeconds() {
+            return ttlSeconds;
+        }
+
+        @Override
+        public long getRemoteCachePersistDelayMs() {
+            return persistDelayMs;
+        }
+    }
+}
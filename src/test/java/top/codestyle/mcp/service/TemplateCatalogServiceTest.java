@@ -0,0 +1,118 @@
+package top.codestyle.mcp.service;
+
+import cn.hutool.core.io.FileUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import top.codestyle.mcp.config.RepositoryConfigStub;
+import top.codestyle.mcp.model.sdk.MetaInfo;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 模板目录服务测试
+ *
+ * @author movclantian
+ * @since 2026-10-18
+ */
+class TemplateCatalogServiceTest {
+
+    @TempDir
+    Path repoDir;
+
+    private TemplateCatalogService catalog;
+
+    @BeforeEach
+    void setUp() {
+        catalog = new TemplateCatalogService(new RepositoryConfigStub(false, repoDir.toString(), null));
+    }
+
+    @Test
+    void reloadsWhenMetaJsonChanges() throws IOException {
+        writeVersion("1.0", "A.ftl");
+        var first = catalog.getLatestMetaInfos("g", "a");
+        assertEquals(List.of("1.0"), versions(first));
+        assertSame(first, catalog.getLatestMetaInfos("g", "a"));
+        assertNotNull(catalog.findByPath("g/a/1.0/src/A.ftl"));
+
+        // 大小变化
+        writeVersion("1.10", "B.ftl");
+        assertEquals(List.of("1.10"), versions(catalog.getLatestMetaInfos("g", "a")));
+        assertNull(catalog.findByPath("g/a/1.0/src/A.ftl"));
+        assertNotNull(catalog.findByPath("g/a/1.10/src/B.ftl"));
+
+        // 大小相同,仅修改时间变化
+        Path metaFile = writeVersion("1.11", "B.ftl");
+        FileTime mtime = Files.getLastModifiedTime(metaFile);
+        Files.setLastModifiedTime(metaFile, FileTime.fromMillis(mtime.toMillis() - 5000));
+        assertEquals(List.of("1.11"), versions(catalog.getLatestMetaInfos("g", "a")));
+
+        Files.delete(metaFile);
+        assertTrue(catalog.getLatestMetaInfos("g", "a").isEmpty());
+    }
+
+    @Test
+    void invalidateDropsEntryEvenWhenMetaJsonUnchanged() throws IOException {
+        writeVersion("1.0", "A.ftl");
+        var first = catalog.getLatestMetaInfos("g", "a");
+
+        catalog.invalidate("g", "a");
+        var reloaded = catalog.getLatestMetaInfos("g", "a");
+        assertNotSame(first, reloaded);
+        assertEquals(first, reloaded);
+    }
+
+    @Test
+    void memoizesRenderUntilTemplateChanges() {
+        var renders = new AtomicInteger();
+        Function<List<MetaInfo>, String> renderer = metaInfos -> {
+            renders.incrementAndGet();
+            return String.join(",", versions(metaInfos));
+        };
+        assertNull(catalog.getRendered("g", "a", "tree", renderer));
+
+        writeVersion("1.0", "A.ftl");
+        assertEquals("1.0", catalog.getRendered("g", "a", "tree", renderer));
+        assertEquals("1.0", catalog.getRendered("g", "a", "tree", renderer));
+        assertEquals(1, renders.get());
+        // 不同渲染键分别缓存
+        assertEquals("1.0", catalog.getRendered("g", "a", "other", renderer));
+        assertEquals(2, renders.get());
+
+        // 安装新版本后重新渲染
+        writeVersion("1.10", "B.ftl");
+        assertEquals("1.10", catalog.getRendered("g", "a", "tree", renderer));
+        assertEquals(3, renders.get());
+
+        // 下载或目录监听主动失效后重新渲染
+        catalog.invalidate("g", "a");
+        assertEquals("1.10", catalog.getRendered("g", "a", "tree", renderer));
+        assertEquals(4, renders.get());
+    }
+
+    /**
+     * 写入模板文件并将meta.json的最新版本指向它
+     */
+    private Path writeVersion(String version, String filename) {
+        var artifactDir = repoDir.resolve("g").resolve("a").toFile();
+        FileUtil.writeUtf8String("content", FileUtil.file(artifactDir, version + "/src/" + filename));
+        File metaFile = FileUtil.writeUtf8String("""
+                {"groupId":"g","artifactId":"a","configs":[{"version":"%s","files":[
+                  {"filePath":"/src","filename":"%s","sha256":"待计算"}]}]}
+                """.formatted(version, filename), FileUtil.file(artifactDir, "meta.json"));
+        return metaFile.toPath();
+    }
+
+    private static List<String> versions(List<MetaInfo> metaInfos) {
+        return metaInfos.stream().map(MetaInfo::getVersion).toList();
+    }
+}
@@ -0,0 +1,133 @@
+package top.codestyle.mcp.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import top.codestyle.mcp.config.RepositoryConfigStub;
+
+import java.io.IOException;
+import java.nio.charset.MalformedInputException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 模板文件内容服务测试
+ *
+ * @author movclantian
+ * @since 2026-10-18
+ */
+class TemplateContentServiceTest {
+
+    @TempDir
+    Path repoDir;
+
+    @Test
+    void evictsLeastRecentlyUsedByBytes() throws IOException {
+        var service = new TemplateContentService(new ContentConfig(10, 1024));
+        Path a = write("A.ftl", "aaaa");
+        Path b = write("B.ftl", "bbbb");
+        Path c = write("C.ftl", "cccc");
+        Path large = write("Large.ftl", "x".repeat(11));
+
+        service.read(a, null);
+        service.read(b, null);
+        service.read(a, null);
+        // 总字节数超过上限,淘汰最久未使用的B
+        service.read(c, null);
+        // 超过缓存总容量的文件不缓存
+        service.read(large, null);
+
+        var stats = service.getContentCacheStats();
+        assertEquals(1, stats.hits());
+        assertEquals(1, stats.evictions());
+        assertEquals(8, stats.weightedSize());
+        service.read(b, null);
+        assertEquals(1, service.getContentCacheStats().hits());
+    }
+
+    @Test
+    void rereadsWhenMtimeOrSizeChanges() throws IOException {
+        var service = new TemplateContentService(new ContentConfig(1024, 1024));
+        Path file = write("A.ftl", "v1");
+        FileTime mtime = Files.getLastModifiedTime(file);
+        assertEquals("v1", service.read(file, "sha1"));
+
+        // 修改时间和大小都未变化时命中缓存
+        write("A.ftl", "v2");
+        Files.setLastModifiedTime(file, mtime);
+        assertEquals("v1", service.read(file, "sha1"));
+
+        Files.setLastModifiedTime(file, FileTime.fromMillis(mtime.toMillis() + 1000));
+        assertEquals("v2", service.read(file, "sha1"));
+
+        write("A.ftl", "v3 更长的内容");
+        Files.setLastModifiedTime(file, mtime);
+        assertEquals("v3 更长的内容", service.read(file, "sha1"));
+    }
+
+    @Test
+    void mappedAndHeapReadsAgree() throws IOException {
+        var service = new TemplateContentService(new ContentConfig(1024, 16));
+        String text = "模板内容 template ";
+        Path small = write("Small.ftl", "模板");
+        Path mapped = write("Mapped.ftl", text.repeat(4));
+        assertEquals("模板", service.read(small, null));
+        assertEquals(text.repeat(4), service.read(mapped, null));
+
+        byte[] malformed = {'a', (byte) 0xC3, '(', 'b'};
+        Path badSmall = repoDir.resolve("BadSmall.ftl");
+        Files.write(badSmall, malformed);
+        Path badMapped = repoDir.resolve("BadMapped.ftl");
+        Files.write(badMapped, concat("x".repeat(32).getBytes(StandardCharsets.UTF_8), malformed));
+
+        // 非法UTF-8字节在两种读取方式下都报错,不会因文件大小不同而返回替换字符
+        assertThrows(MalformedInputException.class, () -> service.read(badSmall, null));
+        assertThrows(MalformedInputException.class, () -> service.read(badMapped, null));
+    }
+
+    @Test
+    void reportsMissingFile() {
+        var service = new TemplateContentService(new ContentConfig(1024, 1024));
+        var e = assertThrows(IOException.class, () -> service.read(repoDir.resolve("Missing.ftl"), null));
+        assertTrue(e.getMessage().startsWith("模板文件不存在"));
+    }
+
+    private Path write(String name, String content) throws IOException {
+        return Files.writeString(repoDir.resolve(name), content, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] concat(byte[] first, byte[] second) {
+        byte[] result = new byte[first.length + second.length];
+        System.arraycopy(first, 0, result, 0, first.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+
+    /**
+     * 可调整缓存容量和内存映射阈值的配置
+     */
+    private class ContentConfig extends RepositoryConfigStub {
+
+        private final long maxBytes;
+        private final long mmapThresholdBytes;
+
+        ContentConfig(long maxBytes, long mmapThresholdBytes) {
+            super(false, repoDir.toString(), null);
+            this.maxBytes = maxBytes;
+            this.mmapThresholdBytes = mmapThresholdBytes;
+        }
+
+        @Override
+        public long getContentCacheMaxBytes() {
+            return maxBytes;
+        }
+
+        @Override
+        public long getContentCacheMmapThresholdBytes() {
+            return mmapThresholdBytes;
+        }
+    }
+}
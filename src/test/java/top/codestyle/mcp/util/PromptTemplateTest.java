@@ -0,0 +1,92 @@
+package top.codestyle.mcp.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.regex.Matcher;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 预编译提示词模板测试,与原逐个replaceFirst替换的实现比对输出
+ *
+ * @author movclantian
+ * @since 2026-10-18
+ */
+class PromptTemplateTest {
+
+    private static final String[] TEMPLATES = {"content-result.txt", "search-result.txt", "ranked-result.txt"};
+    private static final String[] SAMPLES = {"", "CRUD", "增删改查 模板", "$1 \\n $ \\", "a\nb\r\n", "${name}",
+            "└── Controller.ftl", "%{", "{s}"};
+
+    @Test
+    void matchesLegacyReplacementForBundledTemplates() throws IOException {
+        var random = new Random(42);
+        for (String name : TEMPLATES) {
+            String template = load(name);
+            var compiled = PromptTemplate.compile(template);
+            for (int i = 0; i < 200; i++) {
+                String[] params = new String[compiled.slotCount()];
+                for (int p = 0; p < params.length; p++)
+                    params[p] = randomParam(random);
+                String expected = legacy(template, params);
+                assertArrayEquals(expected.getBytes(StandardCharsets.UTF_8),
+                        compiled.render(params).getBytes(StandardCharsets.UTF_8), name);
+            }
+        }
+    }
+
+    @Test
+    void rendersFromSlotForKeywordSplit() throws IOException {
+        String template = load("search-result.txt");
+        var compiled = PromptTemplate.compile(template);
+        String[] params = {"CRUD", "src/\n└── A.ftl", "$描述\\"};
+
+        String body = compiled.render(1, params[1], params[2]);
+        assertEquals(legacy(template, params), compiled.segment(0) + params[0] + body);
+    }
+
+    @Test
+    void handlesEdgeTemplates() {
+        assertEquals("", PromptTemplate.compile("").render());
+        assertEquals("ab", PromptTemplate.compile("%{s}%{s}").render("a", "b"));
+        assertEquals("[]", PromptTemplate.compile("[%{s}]").render((String) null));
+        assertEquals(0, PromptTemplate.compile("no slots").slotCount());
+        // 参数本身包含占位符时不会被后续参数再次替换
+        assertEquals("%{s}-x", PromptTemplate.compile("%{s}-%{s}").render("%{s}", "x"));
+        assertThrows(IllegalArgumentException.class, () -> PromptTemplate.compile("%{s}").render());
+        assertThrows(IllegalArgumentException.class, () -> PromptTemplate.compile("%{s}").render(1, "a"));
+    }
+
+    private static String randomParam(Random random) {
+        if (random.nextInt(10) == 0)
+            return null;
+        var sb = new StringBuilder();
+        int parts = random.nextInt(4);
+        for (int i = 0; i < parts; i++)
+            sb.append(SAMPLES[random.nextInt(SAMPLES.length)]);
+        return sb.toString();
+    }
+
+    private static String load(String name) throws IOException {
+        try (InputStream in = PromptTemplateTest.class.getClassLoader().getResourceAsStream(name)) {
+            assertNotNull(in, name);
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8).strip();
+        }
+    }
+
+    /**
+     * 原逐个replaceFirst替换的实现
+     */
+    private static String legacy(String template, String... params) {
+        String result = template;
+        for (String p : params) {
+            String replacement = Matcher.quoteReplacement(p == null ? "" : p);
+            result = result.replaceFirst("%\\{s}", replacement);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,122 @@
+package top.codestyle.mcp.util;
+
+import org.junit.jupiter.api.Test;
+import top.codestyle.mcp.model.tree.TreeNode;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 目录树渲染测试,与原逐层递归拼接的实现比对输出
+ *
+ * @author movclantian
+ * @since 2026-10-18
+ */
+class PromptUtilsTest {
+
+    @Test
+    void matchesRecursiveRendererWithoutLimits() {
+        var random = new Random(42);
+        for (int i = 0; i < 50; i++) {
+            var root = randomTree(random, 4);
+            assertEquals(recursive(root, ""), PromptUtils.buildTreeStr(root, ""));
+            assertEquals(recursive(root, "  "), PromptUtils.buildTreeStr(root, "  ", 0, 0));
+        }
+    }
+
+    @Test
+    void omitsOnlyWhenNodesRemain() {
+        var root = new TreeNode("");
+        var dir = dir(root, "src");
+        dir.getFiles().add("src/A.ftl");
+
+        // 恰好输出全部节点时不应出现省略行
+        assertEquals("""
+                  src/
+                  └── A.ftl
+                """, PromptUtils.buildTreeStr(root, "", 2, 0));
+        assertEquals(recursive(root, ""), PromptUtils.buildTreeStr(root, "", 2, 0));
+
+        root.getFiles().add("B.ftl");
+        assertEquals("""
+                  src/
+                  └── A.ftl
+                ... (节点过多,已省略其余内容)
+                """, PromptUtils.buildTreeStr(root, "", 2, 0));
+        assertEquals(recursive(root, ""), PromptUtils.buildTreeStr(root, "", 3, 0));
+    }
+
+    @Test
+    void capsNodesInsideFileList() {
+        var root = new TreeNode("");
+        var dir = dir(root, "src");
+        dir.getFiles().add("src/A.ftl");
+        dir.getFiles().add("src/B.ftl");
+
+        assertEquals("""
+                  src/
+                  └── A.ftl
+                  ... (节点过多,已省略其余内容)
+                """, PromptUtils.buildTreeStr(root, "", 2, 0));
+    }
+
+    @Test
+    void capsDepth() {
+        var root = new TreeNode("");
+        var src = dir(root, "src");
+        var main = dir(src, "main");
+        main.getFiles().add("src/main/A.ftl");
+        dir(main, "java").getFiles().add("src/main/java/B.ftl");
+        src.getFiles().add("src/C.ftl");
+
+        assertEquals("""
+                  src/
+                    main/
+                    ... (省略 2 个文件)
+                  └── C.ftl
+                """, PromptUtils.buildTreeStr(root, "", 0, 2));
+        assertEquals(recursive(root, ""), PromptUtils.buildTreeStr(root, "", 0, 4));
+    }
+
+    private static TreeNode dir(TreeNode parent, String name) {
+        var node = new TreeNode(name);
+        parent.getChildren().put(name, node);
+        return node;
+    }
+
+    private static TreeNode randomTree(Random random, int depth) {
+        var root = new TreeNode("");
+        fill(root, "", random, depth);
+        return root;
+    }
+
+    private static void fill(TreeNode node, String path, Random random, int depth) {
+        int files = random.nextInt(4);
+        for (int i = 0; i < files; i++)
+            node.getFiles().add(path + "F" + i + ".ftl");
+        if (depth == 0)
+            return;
+        int dirs = random.nextInt(3);
+        for (int i = 0; i < dirs; i++) {
+            var name = "d" + i;
+            fill(dir(node, name), path + name + "/", random, depth - 1);
+        }
+    }
+
+    /**
+     * 原逐层递归拼接的实现
+     */
+    private static String recursive(TreeNode node, String indent) {
+        StringBuilder sb = new StringBuilder();
+        if (!node.getName().isEmpty()) {
+            sb.append(indent).append(node.getName()).append("/\n");
+        }
+        node.getChildren().values().forEach(c -> sb.append(recursive(c, indent + "  ")));
+        node.getFiles().forEach(f -> {
+            String fileName = f.substring(f.lastIndexOf("/") + 1);
+            sb.append(indent).append("└── ").append(fileName).append('\n');
+        });
+        return sb.toString();
+    }
+}
@@ -0,0 +1,249 @@
+package top.codestyle.mcp.util;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import okhttp3.Response;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 远程仓库HTTP客户端测试,使用本地JDK HttpServer模拟远程仓库
+ *
+ * @author movclantian
+ * @since 2026-10-18
+ */
+class RemoteHttpClientTest {
+
+    private HttpServer server;
+    private String baseUrl;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+        RemoteHttpClient.configure(RemoteHttpClient.Settings.DEFAULTS);
+    }
+
+    @Test
+    void reusesKeepAliveConnection() throws IOException {
+        Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+        server.createContext("/ping", exchange -> {
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            respond(exchange, 200, "pong");
+        });
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals("pong", RemoteHttpClient.getString(baseUrl + "/ping", Map.of()));
+        }
+        assertEquals(1, clientPorts.size());
+    }
+
+    @Test
+    void encodesQueryParametersAndSendsUserAgent() throws IOException {
+        server.createContext("/echo", exchange -> respond(exchange, 200,
+                exchange.getRequestURI().getQuery() + "|" + exchange.getRequestHeaders().getFirst("User-Agent")));
+
+        String body = RemoteHttpClient.getString(baseUrl + "/echo", Map.of("templateKeyword", "增删改查 CRUD"));
+        assertEquals("templateKeyword=增删改查 CRUD|MCP-CodeStyle-Server/1.0", body);
+    }
+
+    @Test
+    void decompressesGzipTransparently() throws IOException {
+        String text = "模板内容".repeat(1000);
+        AtomicReference<String> acceptEncoding = new AtomicReference<>();
+        server.createContext("/gzip", exchange -> {
+            acceptEncoding.set(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = new GZIPOutputStream(exchange.getResponseBody())) {
+                out.write(text.getBytes(StandardCharsets.UTF_8));
+            }
+        });
+
+        assertEquals(text, RemoteHttpClient.getString(baseUrl + "/gzip", Map.of()));
+        assertEquals("gzip", acceptEncoding.get());
+    }
+
+    @Test
+    void sendsAsyncRequestWithoutBlockingCaller() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        server.createContext("/async", exchange -> {
+            await(release);
+            respond(exchange, 200, exchange.getRequestHeaders().getFirst("If-None-Match"));
+        });
+
+        CompletableFuture<Response> future = RemoteHttpClient.getAsync(baseUrl + "/async", Map.of(),
+                Map.of("If-None-Match", "\"v1\""));
+        assertFalse(future.isDone());
+        release.countDown();
+        try (Response response = future.get(10, TimeUnit.SECONDS)) {
+            assertEquals("\"v1\"", response.body().string());
+        }
+    }
+
+    @Test
+    void failsOnNonSuccessStatus() {
+        server.createContext("/missing", exchange -> respond(exchange, 404, "not found"));
+
+        IOException e = assertThrows(IOException.class,
+                () -> RemoteHttpClient.getString(baseUrl + "/missing", Map.of()));
+        assertTrue(e.getMessage().contains("404"));
+    }
+
+    @Test
+    void appliesReadTimeout() {
+        RemoteHttpClient.configure(new RemoteHttpClient.Settings(1000, 200, 8, 60000, 8));
+        server.createContext("/slow", exchange -> {
+            sleep(1000);
+            respond(exchange, 200, "late");
+        });
+
+        assertThrows(IOException.class, () -> RemoteHttpClient.getString(baseUrl + "/slow", Map.of()));
+    }
+
+    @Test
+    void limitsConcurrentRequestsPerHostUntilBodyClosed() throws Exception {
+        RemoteHttpClient.configure(new RemoteHttpClient.Settings(1000, 5000, 8, 60000, 2));
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        server.createContext("/stream", exchange -> {
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                // 先返回响应头,响应体等待放行,验证许可持续到响应体关闭
+                out.write('a');
+                out.flush();
+                await(release);
+                out.write('b');
+            } finally {
+                active.decrementAndGet();
+            }
+        });
+
+        ExecutorService pool = Executors.newFixedThreadPool(5);
+        try {
+            Future<?>[] futures = new Future<?>[5];
+            for (int i = 0; i < futures.length; i++) {
+                futures[i] = pool.submit(() -> {
+                    try (Response response = RemoteHttpClient.get(baseUrl + "/stream", Map.of())) {
+                        return response.body().string();
+                    }
+                });
+            }
+            // 冷启动时首批请求到达较慢,先等待占满许可,再确认没有更多请求进入
+            awaitCount(active, 2);
+            Thread.sleep(300);
+            assertEquals(2, active.get());
+            release.countDown();
+            for (Future<?> future : futures) {
+                assertEquals("ab", future.get(10, TimeUnit.SECONDS));
+            }
+            assertEquals(2, maxActive.get());
+        } finally {
+            release.countDown();
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void asyncRequestsAreLimitedByDispatcherNotSyncPermits() throws Exception {
+        RemoteHttpClient.configure(new RemoteHttpClient.Settings(1000, 5000, 8, 60000, 1));
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        server.createContext("/stream", exchange -> {
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write('a');
+                out.flush();
+                await(release);
+                out.write('b');
+            }
+        });
+        server.createContext("/async", exchange -> {
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            sleep(100);
+            active.decrementAndGet();
+            respond(exchange, 200, "ok");
+        });
+
+        // 同步流式响应占用唯一的主机许可,异步请求不等待该许可
+        try (Response stream = RemoteHttpClient.get(baseUrl + "/stream", Map.of())) {
+            List<CompletableFuture<Response>> futures = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                futures.add(RemoteHttpClient.getAsync(baseUrl + "/async", Map.of(), Map.of()));
+            }
+            for (CompletableFuture<Response> future : futures) {
+                try (Response response = future.get(5, TimeUnit.SECONDS)) {
+                    assertEquals("ok", response.body().string());
+                }
+            }
+            assertEquals(1, maxActive.get());
+            release.countDown();
+            assertEquals("ab", stream.body().string());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void awaitCount(AtomicInteger counter, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (counter.get() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,349 @@
+package top.codestyle.mcp.util;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import top.codestyle.mcp.config.RepositoryConfigStub;
+import top.codestyle.mcp.model.sdk.RemoteMetaConfig;
+import top.codestyle.mcp.service.LuceneIndexService;
+import top.codestyle.mcp.service.RemoteSearchCacheService;
+import top.codestyle.mcp.service.TemplateCatalogService;
+import top.codestyle.mcp.service.TemplateContentService;
+import top.codestyle.mcp.service.TemplateService;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 远程检索和模板下载测试,使用本地JDK HttpServer模拟远程仓库接口
+ *
+ * @author movclantian
+ * @since 2026-10-18
+ */
+class SDKUtilsTest {
+
+    @TempDir
+    Path repoDir;
+
+    private HttpServer server;
+    private String baseUrl;
+    private final Map<String, String> remoteFiles = new TreeMap<>();
+    private final List<String> requestedPaths = new CopyOnWriteArrayList<>();
+    private volatile boolean tamper;
+    private volatile CountDownLatch archiveGate;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/api/mcp/search", exchange -> respond(exchange, """
+                {"groupId":"backend","artifactId":"CRUD","description":"增删改查",
+                 "config":{"version":"1.0.0","files":[{"filePath":"/src","filename":"A.ftl","sha256":"abc"}]}}
+                """.getBytes(StandardCharsets.UTF_8)));
+        server.createContext("/api/file/load", this::serveArchive);
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void fetchesRemoteMetaConfig() {
+        RemoteMetaConfig config = SDKUtils.fetchRemoteMetaConfig(baseUrl, "CRUD");
+
+        assertNotNull(config);
+        assertEquals("backend", config.getGroupId());
+        assertEquals("1.0.0", config.getConfig().getVersion());
+        assertEquals("abc", config.getConfig().getFiles().get(0).getSha256());
+    }
+
+    @Test
+    void returnsNullWhenRemoteUnavailable() {
+        server.stop(0);
+        assertNull(SDKUtils.fetchRemoteMetaConfig(baseUrl, "CRUD"));
+    }
+
+    @Test
+    void downloadsFullGroupThenOnlyChangedFiles() throws Exception {
+        RemoteMetaConfig config = remoteConfig("A.ftl", "B.ftl");
+
+        assertTrue(SDKUtils.smartDownloadTemplate(repoDir.toString(), baseUrl, config));
+        assertEquals(List.of(sep("/g/a")), requestedPaths);
+        assertEquals("content-A.ftl", Files.readString(repoDir.resolve("g/a/1.0/src/A.ftl")));
+        assertTrue(Files.exists(repoDir.resolve("g/a/meta.json")));
+
+        requestedPaths.clear();
+        assertTrue(SDKUtils.smartDownloadTemplate(repoDir.toString(), baseUrl, config));
+        assertTrue(requestedPaths.isEmpty());
+
+        putRemoteFile(config, "B.ftl", "changed");
+        assertTrue(SDKUtils.smartDownloadTemplate(repoDir.toString(), baseUrl, config));
+        assertEquals(List.of(sep("/g/a/1.0/src/B.ftl")), requestedPaths);
+        assertEquals("changed", Files.readString(repoDir.resolve("g/a/1.0/src/B.ftl")));
+        assertTrue(Files.readString(repoDir.resolve("g/a/meta.json")).contains(sha256("changed")));
+    }
+
+    @Test
+    void refetchesOnlyMissingOrCorruptedFiles() throws Exception {
+        RemoteMetaConfig config = remoteConfig("A.ftl", "B.ftl", "C.ftl");
+        assertTrue(SDKUtils.smartDownloadTemplate(repoDir.toString(), baseUrl, config));
+        Path srcDir = repoDir.resolve("g/a/1.0/src");
+        Files.delete(srcDir.resolve("A.ftl"));
+        Files.writeString(srcDir.resolve("B.ftl"), "edited by hand");
+
+        requestedPaths.clear();
+        assertTrue(SDKUtils.smartDownloadTemplate(repoDir.toString(), baseUrl, config));
+        assertEquals(List.of(sep("/g/a/1.0/src/A.ftl") + "," + sep("/g/a/1.0/src/B.ftl")), requestedPaths);
+        assertEquals("content-A.ftl", Files.readString(srcDir.resolve("A.ftl")));
+        assertEquals("content-B.ftl", Files.readString(srcDir.resolve("B.ftl")));
+        assertEquals("content-C.ftl", Files.readString(srcDir.resolve("C.ftl")));
+    }
+
+    @Test
+    void downloadsWholeGroupWhenDifferentialDisabled() throws Exception {
+        RemoteMetaConfig config = remoteConfig("A.ftl", "B.ftl");
+        assertTrue(SDKUtils.smartDownloadTemplate(repoDir.toString(), baseUrl, config, false));
+
+        putRemoteFile(config, "B.ftl", "changed");
+        assertTrue(SDKUtils.smartDownloadTemplate(repoDir.toString(), baseUrl, config, false));
+        assertEquals(List.of(sep("/g/a"), sep("/g/a")), requestedPaths);
+        assertEquals("changed", Files.readString(repoDir.resolve("g/a/1.0/src/B.ftl")));
+    }
+
+    @Test
+    void rejectsTamperedArchiveWithoutTouchingTemplates() throws Exception {
+        RemoteMetaConfig config = remoteConfig("A.ftl");
+        assertTrue(SDKUtils.smartDownloadTemplate(repoDir.toString(), baseUrl, config));
+
+        putRemoteFile(config, "A.ftl", "v2");
+        tamper = true;
+        assertFalse(SDKUtils.smartDownloadTemplate(repoDir.toString(), baseUrl, config));
+        assertEquals("content-A.ftl", Files.readString(repoDir.resolve("g/a/1.0/src/A.ftl")));
+        assertFalse(Files.exists(repoDir.resolve(TemplateArchiveExtractor.STAGING_DIR)));
+    }
+
+    @Test
+    void skipsArchiveEntriesOutsideManifest() throws Exception {
+        RemoteMetaConfig config = remoteConfig("A.ftl");
+        remoteFiles.put("g/a/1.0/src/Unlisted.ftl", "unlisted");
+        remoteFiles.put("g/a/0.9/src/A.ftl", "old");
+        remoteFiles.put("g/a/preview.png", "png");
+
+        assertTrue(SDKUtils.smartDownloadTemplate(repoDir.toString(), baseUrl, config));
+        assertEquals("content-A.ftl", Files.readString(repoDir.resolve("g/a/1.0/src/A.ftl")));
+        assertFalse(Files.exists(repoDir.resolve("g/a/1.0/src/Unlisted.ftl")));
+        assertFalse(Files.exists(repoDir.resolve("g/a/0.9")));
+        assertFalse(Files.exists(repoDir.resolve("g/a/preview.png")));
+    }
+
+    @Test
+    void replacesVersionDirectoryAsWholeAndKeepsUnchangedFiles() throws Exception {
+        RemoteMetaConfig config = remoteConfig("A.ftl", "B.ftl");
+        assertTrue(SDKUtils.smartDownloadTemplate(repoDir.toString(), baseUrl, config));
+        Path versionDir = repoDir.resolve("g/a/1.0");
+        Object fileKey = Files.readAttributes(versionDir, BasicFileAttributes.class).fileKey();
+        Files.writeString(versionDir.resolve("notes.txt"), "local");
+
+        putRemoteFile(config, "B.ftl", "changed");
+        assertTrue(SDKUtils.smartDownloadTemplate(repoDir.toString(), baseUrl, config));
+        assertEquals(List.of(sep("/g/a"), sep("/g/a/1.0/src/B.ftl")), requestedPaths);
+
+        // 版本目录整体替换,未下载的文件随新目录保留
+        assertNotEquals(fileKey, Files.readAttributes(versionDir, BasicFileAttributes.class).fileKey());
+        assertEquals("content-A.ftl", Files.readString(versionDir.resolve("src/A.ftl")));
+        assertEquals("changed", Files.readString(versionDir.resolve("src/B.ftl")));
+        assertEquals("local", Files.readString(versionDir.resolve("notes.txt")));
+        assertFalse(Files.exists(repoDir.resolve(TemplateArchiveExtractor.STAGING_DIR)));
+    }
+
+    @Test
+    void concurrentCallersShareOneDownload() throws Exception {
+        RemoteMetaConfig config = remoteConfig("A.ftl");
+        var repositoryConfig = new RepositoryConfigStub(true, repoDir.toString(), baseUrl);
+        var templateService = new TemplateService(repositoryConfig, new LuceneIndexService(repositoryConfig),
+                new TemplateCatalogService(repositoryConfig), new TemplateContentService(repositoryConfig),
+                new RemoteSearchCacheService(repositoryConfig));
+        int callers = 4;
+        archiveGate = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        try {
+            List<Thread> threads = new CopyOnWriteArrayList<>();
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(pool.submit(() -> {
+                    threads.add(Thread.currentThread());
+                    return templateService.smartDownloadTemplate(config);
+                }));
+            }
+            // 一个调用方阻塞在下载请求上,其余调用方都在等待同一个下载结果后再放行
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (threads.size() < callers || requestedPaths.isEmpty()
+                    || threads.stream().filter(t -> t.getState() == Thread.State.WAITING).count() < callers - 1) {
+                assertTrue(System.nanoTime() < deadline, "callers did not coalesce");
+                Thread.sleep(10);
+            }
+            archiveGate.countDown();
+
+            for (Future<Boolean> result : results)
+                assertTrue(result.get(10, TimeUnit.SECONDS));
+        } finally {
+            archiveGate.countDown();
+            pool.shutdownNow();
+        }
+        assertEquals(List.of(sep("/g/a")), requestedPaths);
+        assertEquals("content-A.ftl", Files.readString(repoDir.resolve("g/a/1.0/src/A.ftl")));
+    }
+
+    @Test
+    void servesInstalledVersionWhileRefreshingInBackground() throws Exception {
+        RemoteMetaConfig config = remoteConfig("A.ftl");
+        var repositoryConfig = new RepositoryConfigStub(true, repoDir.toString(), baseUrl) {
+            @Override
+            public boolean isDownloadBackgroundRefreshEnabled() {
+                return true;
+            }
+        };
+        var templateService = new TemplateService(repositoryConfig, new LuceneIndexService(repositoryConfig),
+                new TemplateCatalogService(repositoryConfig), new TemplateContentService(repositoryConfig),
+                new RemoteSearchCacheService(repositoryConfig));
+        Path file = repoDir.resolve("g/a/1.0/src/A.ftl");
+        try {
+            // 本地缺失时同步下载
+            assertTrue(templateService.ensureTemplate(config));
+            assertEquals("content-A.ftl", Files.readString(file));
+
+            putRemoteFile(config, "A.ftl", "v2");
+            archiveGate = new CountDownLatch(1);
+            requestedPaths.clear();
+            // 远程响应被挂起期间,调用方立即拿到已安装的版本,重复调用不会再提交后台更新
+            assertTrue(templateService.ensureTemplate(config));
+            assertTrue(templateService.ensureTemplate(config));
+            awaitCondition(() -> !requestedPaths.isEmpty());
+            assertEquals("content-A.ftl", Files.readString(file));
+            assertEquals("1.0", templateService.searchLocalRepository("g", "a").get(0).getVersion());
+
+            archiveGate.countDown();
+            awaitCondition(() -> "v2".equals(readQuietly(file)));
+            assertEquals(List.of(sep("/g/a/1.0/src/A.ftl")), requestedPaths);
+        } finally {
+            archiveGate.countDown();
+            templateService.destroy();
+        }
+    }
+
+    private RemoteMetaConfig remoteConfig(String... filenames) throws Exception {
+        RemoteMetaConfig config = new RemoteMetaConfig();
+        config.setGroupId("g");
+        config.setArtifactId("a");
+        RemoteMetaConfig.Config versionConfig = new RemoteMetaConfig.Config();
+        versionConfig.setVersion("1.0");
+        versionConfig.setFiles(new ArrayList<>());
+        config.setConfig(versionConfig);
+        for (String filename : filenames) {
+            RemoteMetaConfig.FileInfo file = new RemoteMetaConfig.FileInfo();
+            file.setFilePath("/src");
+            file.setFilename(filename);
+            versionConfig.getFiles().add(file);
+            putRemoteFile(config, filename, "content-" + filename);
+        }
+        return config;
+    }
+
+    private void putRemoteFile(RemoteMetaConfig config, String filename, String content) throws Exception {
+        remoteFiles.put("g/a/1.0/src/" + filename, content);
+        for (RemoteMetaConfig.FileInfo file : config.getConfig().getFiles()) {
+            if (file.getFilename().equals(filename)) {
+                file.setSha256(sha256(content));
+            }
+        }
+    }
+
+    private void serveArchive(HttpExchange exchange) throws IOException {
+        String query = exchange.getRequestURI().getQuery();
+        String paths = query.substring("paths=".length());
+        requestedPaths.add(paths);
+        CountDownLatch gate = archiveGate;
+        if (gate != null) {
+            try {
+                gate.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        List<String> requested = List.of(paths.replace('\\', '/').split(","));
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(buffer)) {
+            for (var file : remoteFiles.entrySet()) {
+                String path = "/" + file.getKey();
+                if (requested.stream().noneMatch(p -> path.equals(p) || path.startsWith(p + "/"))) {
+                    continue;
+                }
+                zip.putNextEntry(new ZipEntry(file.getKey()));
+                zip.write((tamper ? "tampered" : file.getValue()).getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+        respond(exchange, buffer.toByteArray());
+    }
+
+    private static void respond(HttpExchange exchange, byte[] body) throws IOException {
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met in time");
+            Thread.sleep(10);
+        }
+    }
+
+    private static String readQuietly(Path file) {
+        try {
+            return Files.readString(file);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static String sep(String path) {
+        return SDKUtils.normalizePath(path);
+    }
+
+    private static String sha256(String content) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                .digest(content.getBytes(StandardCharsets.UTF_8)));
+    }
+}
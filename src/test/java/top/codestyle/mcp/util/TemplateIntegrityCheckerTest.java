@@ -0,0 +1,90 @@
+package top.codestyle.mcp.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 模板文件完整性校验测试
+ *
+ * @author movclantian
+ * @since 2026-10-18
+ */
+class TemplateIntegrityCheckerTest {
+
+    @TempDir
+    Path repoDir;
+
+    @Test
+    void acceptsOnlyHexDigests() {
+        assertTrue(TemplateIntegrityChecker.isSha256(sha256("a")));
+        assertTrue(TemplateIntegrityChecker.isSha256(sha256("a").toUpperCase()));
+        assertFalse(TemplateIntegrityChecker.isSha256("待计算"));
+        assertFalse(TemplateIntegrityChecker.isSha256(sha256("a").substring(1)));
+        assertFalse(TemplateIntegrityChecker.isSha256(null));
+        // 占位摘要不参与校验
+        assertTrue(TemplateIntegrityChecker.matches(repoDir.resolve("missing.ftl"), "待计算"));
+    }
+
+    @Test
+    void changedMtimeInvalidatesCachedDigest() throws Exception {
+        Path file = repoDir.resolve("A.ftl");
+        Files.writeString(file, "aaaa", StandardCharsets.UTF_8);
+        FileTime mtime = Files.getLastModifiedTime(file);
+        assertEquals(sha256("aaaa"), TemplateIntegrityChecker.sha256(file));
+
+        // 大小和修改时间都未变化时直接使用缓存,不重新读取内容
+        Files.writeString(file, "bbbb", StandardCharsets.UTF_8);
+        Files.setLastModifiedTime(file, mtime);
+        assertEquals(sha256("aaaa"), TemplateIntegrityChecker.sha256(file));
+
+        Files.setLastModifiedTime(file, FileTime.fromMillis(mtime.toMillis() + 1000));
+        assertEquals(sha256("bbbb"), TemplateIntegrityChecker.sha256(file));
+        assertFalse(TemplateIntegrityChecker.matches(file, sha256("aaaa")));
+    }
+
+    @Test
+    void verifiesRepositoryInParallel() throws Exception {
+        Path versionDir = repoDir.resolve("g/a/1.0/src");
+        Files.createDirectories(versionDir);
+        Files.writeString(versionDir.resolve("Ok.ftl"), "ok");
+        Files.writeString(versionDir.resolve("Bad.ftl"), "tampered");
+        Files.writeString(versionDir.resolve("Todo.ftl"), "todo");
+        Files.writeString(repoDir.resolve("g/a/meta.json"), """
+                {"groupId":"g","artifactId":"a","configs":[{"version":"1.0","files":[
+                  {"filePath":"/src","filename":"Ok.ftl","sha256":"%s"},
+                  {"filePath":"/src","filename":"Bad.ftl","sha256":"%s"},
+                  {"filePath":"/src","filename":"Gone.ftl","sha256":"%s"},
+                  {"filePath":"/src","filename":"Todo.ftl","sha256":"待计算"}]}]}
+                """.formatted(sha256("ok"), sha256("bad"), sha256("gone")));
+
+        var report = TemplateIntegrityChecker.verifyRepository(repoDir, 4);
+        assertEquals(4, report.files());
+        assertEquals(1, report.verified());
+        assertEquals(1, report.skipped());
+        assertEquals(List.of("g/a/1.0/src/Gone.ftl"), report.missing());
+        assertEquals(List.of("g/a/1.0/src/Bad.ftl"), report.corrupted());
+        assertFalse(report.isClean());
+
+        // 文件未变化时再次校验全部命中摘要缓存
+        assertEquals(0, TemplateIntegrityChecker.verifyRepository(repoDir, 4).hashedBytes());
+    }
+
+    private static String sha256(String content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}